@@ -0,0 +1,38 @@
+#!/bin/sh
+
+# Runs the JMH benchmarks in webservice/bench against the clue corpus in
+# webservice/bench/clues.csv. Any arguments are passed on to JMH, e.g.
+#   ./bench.sh SolverBenchmark -p solverName=Anagram
+#   ./bench.sh -l
+
+# Global Variables
+# EDIT AS REQUIRED
+BENCH_DIR=bench-classes
+TOMCAT_LIB=/var/local/apache-tomcat-7.0.47/lib/*
+PROJECT_LIB=WebContent/WEB-INF/lib/*
+JMH_LIB=/usr/local/lib/jmh/*
+# DO NOT EDIT BEYOND THIS POINT
+
+# Move into the base folder
+cd webservice
+
+# Setup the output directory
+echo "setting up the output directory"
+rm -rf $BENCH_DIR
+mkdir $BENCH_DIR
+
+# Compile the project and the benchmarks. The JMH annotation processor
+# generates the benchmark harness at the same time
+echo "compiling the benchmarks"
+find src/ bench/ -name "*.java" > sources.txt
+javac \
+  -classpath $TOMCAT_LIB:$PROJECT_LIB:$JMH_LIB:. \
+  -d $BENCH_DIR \
+  @sources.txt
+rm sources.txt
+
+# The assets and the clue corpus are loaded from the classpath
+echo "running the benchmarks"
+java \
+  -classpath $BENCH_DIR:assets:bench:$TOMCAT_LIB:$PROJECT_LIB:$JMH_LIB \
+  org.openjdk.jmh.Main "$@"
@@ -0,0 +1,131 @@
+package uk.ac.hud.cryptic.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.supercsv.io.CsvListReader;
+import org.supercsv.io.ICsvListReader;
+import org.supercsv.prefs.CsvPreference;
+
+import uk.ac.hud.cryptic.core.Clue;
+import uk.ac.hud.cryptic.core.SolutionPattern;
+
+/**
+ * The clues the benchmarks are run against. These are read from a CSV file
+ * which is checked in alongside the benchmarks, so that results don't depend
+ * on the contents of the test clue database and can be reproduced offline.
+ * Each row holds the type of the clue (as named by the solvers), the clue
+ * itself and its solution.
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class Corpus {
+
+	// Location of the corpus on the classpath
+	private static final String CORPUS = "/clues.csv";
+	// Corpus Instance
+	private static volatile Corpus instance;
+	// Every row of the corpus, in file order
+	private final List<String[]> rows;
+
+	/**
+	 * Default Constructor
+	 */
+	private Corpus() {
+		rows = readFile();
+	}
+
+	/**
+	 * This method will return the current (and only) instance of the Corpus
+	 * object.
+	 * 
+	 * @return the corpus
+	 */
+	public static Corpus getInstance() {
+		// Only lock if the instance hasn't been created yet
+		if (instance == null) {
+			synchronized (Corpus.class) {
+				if (instance == null) {
+					instance = new Corpus();
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Read every row of the corpus file, skipping the header
+	 * 
+	 * @return the type, clue and solution of each row
+	 */
+	private static List<String[]> readFile() {
+		InputStream is = Corpus.class.getResourceAsStream(CORPUS);
+		if (is == null) {
+			throw new IllegalStateException("Unable to find the clue corpus "
+					+ CORPUS + " on the classpath.");
+		}
+
+		List<String[]> rows = new ArrayList<>();
+		// Try-with-resources. Readers are automatically closed after use
+		try (ICsvListReader reader = new CsvListReader(new InputStreamReader(
+				is), CsvPreference.STANDARD_PREFERENCE)) {
+			// Skip the column names
+			reader.getHeader(true);
+			List<String> row;
+			while ((row = reader.read()) != null) {
+				if (row.size() == 3) {
+					rows.add(row.toArray(new String[3]));
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read the clue corpus.",
+					e);
+		}
+		return Collections.unmodifiableList(rows);
+	}
+
+	/**
+	 * Get fresh copies of every clue in the corpus. New <code>Clue</code>
+	 * objects are created on each call, as solving a clue stores its solutions.
+	 * 
+	 * @return all of the clues
+	 */
+	public List<Clue> getClues() {
+		return getClues(null);
+	}
+
+	/**
+	 * Get fresh copies of the clues of a single type
+	 * 
+	 * @param type
+	 *            - the type of clue, e.g. "anagram", or <code>null</code> for
+	 *            every clue
+	 * @return the clues of the given type
+	 */
+	public List<Clue> getClues(String type) {
+		List<Clue> clues = new ArrayList<>();
+		for (String[] row : rows) {
+			if (type == null || type.equals(row[0])) {
+				String pattern = SolutionPattern.toPattern(row[2], true);
+				clues.add(new Clue(row[1], pattern, row[2], row[0]));
+			}
+		}
+		return clues;
+	}
+
+	/**
+	 * Print a summary of the corpus
+	 */
+	public static void main(String[] args) {
+		for (Clue clue : getInstance().getClues()) {
+			System.out.println(clue.getType() + ": " + clue.getClue() + " ("
+					+ clue.getPattern() + ") = " + clue.getActualSolution());
+		}
+	}
+
+} // End of class Corpus
@@ -0,0 +1,80 @@
+package uk.ac.hud.cryptic.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.hud.cryptic.core.Clue;
+import uk.ac.hud.cryptic.core.Manager;
+import uk.ac.hud.cryptic.core.ResultCache;
+
+/**
+ * Times the whole pipeline a request to the web service goes through: every
+ * configured solver run on the shared executor, followed by the confidence
+ * adjustment from the categoriser. Each clue of the corpus is solved in turn.
+ * The result cache is emptied before every invocation, otherwise each clue
+ * would only be solved once and the rest would be cache hits.
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ManagerBenchmark {
+
+	private Manager manager;
+	// Every clue in the corpus
+	private List<Clue> clues;
+
+	/**
+	 * Solve the corpus once, so the resources and categoriser are loaded
+	 * before anything is measured
+	 */
+	@Setup
+	public void setUp() {
+		manager = new Manager();
+		clues = Corpus.getInstance().getClues();
+		for (Clue clue : clues) {
+			manager.distributeAndSolveClue(clue);
+		}
+	}
+
+	/**
+	 * Forget the results of the previous invocation, so that the solvers are
+	 * run again
+	 */
+	@Setup(Level.Invocation)
+	public void clearResults() {
+		ResultCache.getInstance().invalidateAll();
+	}
+
+	/**
+	 * Solve every clue in the corpus once
+	 * 
+	 * @param bh
+	 *            - consumes the solutions so they aren't optimised away
+	 */
+	@Benchmark
+	public void distributeAndSolveClue(Blackhole bh) {
+		for (Clue clue : clues) {
+			bh.consume(manager.distributeAndSolveClue(clue));
+		}
+	}
+
+} // End of class ManagerBenchmark
@@ -0,0 +1,81 @@
+package uk.ac.hud.cryptic.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.hud.cryptic.core.SolutionPattern;
+import uk.ac.hud.cryptic.resource.Dictionary;
+import uk.ac.hud.cryptic.resource.HomophoneDictionary;
+import uk.ac.hud.cryptic.resource.Thesaurus;
+
+/**
+ * Microbenchmarks of the resource lookups the solvers spend most of their time
+ * in. Several of these lookups are cached, so after the warm up iterations the
+ * results reflect a warm resource, as a long running web service would see.
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceBenchmark {
+
+	// A dictionary pattern, as used by the anagram solver
+	@Param({ "?a??e", "s????", "????????", "c?t" })
+	private String pattern;
+
+	// A word to look up in the thesaurus and homophone dictionary
+	@Param({ "knight", "fast", "quiet", "sea" })
+	private String word;
+
+	// The solution pattern second synonyms must match
+	@Param({ "?????" })
+	private String synonymPattern;
+
+	private Dictionary dictionary;
+	private Thesaurus thesaurus;
+	private HomophoneDictionary homophones;
+	private SolutionPattern solutionPattern;
+
+	/**
+	 * Load the resources, keeping the loading time out of the measurements
+	 */
+	@Setup
+	public void setUp() {
+		dictionary = Dictionary.getInstance();
+		thesaurus = Thesaurus.getInstance();
+		homophones = HomophoneDictionary.getInstance();
+		solutionPattern = new SolutionPattern(synonymPattern);
+	}
+
+	@Benchmark
+	public Object matchingWords() {
+		return dictionary.getMatchingWords(pattern);
+	}
+
+	@Benchmark
+	public Object secondSynonyms() {
+		return thesaurus.getSecondSynonyms(word, solutionPattern, true);
+	}
+
+	@Benchmark
+	public Object homonyms() {
+		return homophones.getHomonyms(word);
+	}
+
+} // End of class ResourceBenchmark
@@ -0,0 +1,79 @@
+package uk.ac.hud.cryptic.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.hud.cryptic.core.Clue;
+import uk.ac.hud.cryptic.solver.Solver;
+
+/**
+ * Times each solver on its own, against the clues of its type from the corpus.
+ * The solvers are run on the benchmark thread rather than on the shared
+ * executor, so these results show the cost of the algorithms themselves.
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+	// The solver to run, as the name of its class
+	@Param({ "Acrostic", "Anagram", "Charade", "Container", "Deletion",
+			"DoubleDefinition", "Hidden", "Homophone", "Palindrome", "Pattern",
+			"Reversal", "Spoonerism" })
+	private String solverName;
+
+	// The solver instance
+	private Solver solver;
+	// The clues of the solver's type
+	private List<Clue> clues;
+
+	/**
+	 * Create the solver and load its clues. Creating the first solver also
+	 * loads the dictionary and thesaurus, so this is kept out of the
+	 * measurements.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		Class<?> cls = Class.forName("uk.ac.hud.cryptic.solver." + solverName);
+		solver = (Solver) cls.getDeclaredConstructor().newInstance();
+		// A solver's name is the type of clue it solves
+		clues = Corpus.getInstance().getClues(solver.toString());
+		if (clues.isEmpty()) {
+			throw new IllegalStateException("The corpus has no "
+					+ solver.toString() + " clues.");
+		}
+	}
+
+	/**
+	 * Solve every clue of the solver's type once
+	 * 
+	 * @param bh
+	 *            - consumes the solutions so they aren't optimised away
+	 */
+	@Benchmark
+	public void solve(Blackhole bh) {
+		for (Clue clue : clues) {
+			bh.consume(solver.solve(clue));
+		}
+	}
+
+} // End of class SolverBenchmark
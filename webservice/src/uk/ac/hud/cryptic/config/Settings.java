@@ -1,7 +1,11 @@
 package uk.ac.hud.cryptic.config;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.net.URLConnection;
+import java.util.Properties;
 
 import javax.servlet.ServletContext;
 
@@ -12,7 +16,7 @@ import javax.servlet.ServletContext;
  * @version 0.2
  */
 public class Settings {
-	private static Settings instance;
+	private static volatile Settings instance;
 	// Context if application is executed as a servlet
 	private ServletContext context;
 	// Pre-path for Server environment
@@ -21,6 +25,18 @@ public class Settings {
 	private static final String LOCAL_PRE_PATH = "/";
 	// The database instance to use (currently AWS EC2 or Helios)
 	private final Database db;
+	// Application configuration, loaded on first use
+	private Properties configuration;
+
+	// Locations of the resources which are compiled into snapshots
+	public static final String DICTIONARY = "dictionary/acd/UKACD.txt";
+	public static final String DICTIONARY_EXCLUSIONS = "dictionary/custom/exclusions.txt";
+	public static final String CUSTOM_DICTIONARY = "dictionary/custom/custom-dict.txt";
+	public static final String THESAURUS = "thesaurus/gutenberg/mthesaur.txt";
+	public static final String CUSTOM_THESAURUS = "thesaurus/custom.txt";
+	public static final String HOMOPHONE_DICTIONARY = "homophones/cmudict.0.7a";
+	// Location of the list of solvers to run
+	public static final String SOLVERS = "properties/solvers.properties";
 
 	private Settings() {
 		db = Database.HELIOS;
@@ -48,6 +64,50 @@ public class Settings {
 		return is;
 	}
 
+	/**
+	 * Get the URL for the given path to a resource. The exact location depends
+	 * on whether the application is being run from a local or server
+	 * environment.
+	 * 
+	 * @param resource
+	 *            - the path of the resource to use
+	 * @return the <code>URL</code> of the requested resource, or
+	 *         <code>null</code> if it can't be found
+	 */
+	private URL getURL(ResourceType type, String resource) {
+		// Am I being called from a Servlet?
+		boolean server = context != null;
+		// Path to the resource
+		String path = (server ? SERVER_PRE_PATH + type.getPath()
+				: LOCAL_PRE_PATH) + resource;
+		try {
+			return server ? context.getResource(path) : Settings.class
+					.getResource(path);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Get the time an asset was last modified
+	 * 
+	 * @param resource
+	 *            - the path of the asset
+	 * @return the modification time in milliseconds, or 0 if unknown
+	 */
+	private long getLastModified(String resource) {
+		URL url = getURL(ResourceType.ASSET, resource);
+		if (url == null) {
+			return 0;
+		}
+		try {
+			URLConnection connection = url.openConnection();
+			return connection.getLastModified();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
 	/**
 	 * This method will return the path to the custom dictionary words file.
 	 * 
@@ -55,8 +115,7 @@ public class Settings {
 	 */
 	public InputStream getCustomDictionaryStream() {
 		// Location of the resource
-		return getStream(ResourceType.ASSET,
-				"dictionary/custom/custom-dict.txt");
+		return getStream(ResourceType.ASSET, CUSTOM_DICTIONARY);
 	}
 
 	/**
@@ -98,7 +157,7 @@ public class Settings {
 	 */
 	public InputStream getDictionaryExclusionsStream() {
 		// Location of the resource
-		return getStream(ResourceType.ASSET, "dictionary/custom/exclusions.txt");
+		return getStream(ResourceType.ASSET, DICTIONARY_EXCLUSIONS);
 	}
 
 	/**
@@ -108,7 +167,7 @@ public class Settings {
 	 */
 	public InputStream getDictionaryStream() {
 		// Location of the resource
-		return getStream(ResourceType.ASSET, "dictionary/acd/UKACD.txt");
+		return getStream(ResourceType.ASSET, DICTIONARY);
 	}
 
 	/**
@@ -118,7 +177,184 @@ public class Settings {
 	 */
 	public InputStream getPropertyStream() {
 		// Location of the property
-		return getStream(ResourceType.ASSET, "properties/solvers.properties");
+		return getStream(ResourceType.ASSET, SOLVERS);
+	}
+
+	/**
+	 * Get the time the solvers properties file was last modified, so changes
+	 * to it can be picked up without restarting the application
+	 * 
+	 * @return the modification time in milliseconds, or 0 if unknown
+	 */
+	public long getPropertyLastModified() {
+		return getLastModified(SOLVERS);
+	}
+
+	/**
+	 * This method will return the path to the application configuration file.
+	 * 
+	 * @return the file path to the configuration file
+	 */
+	public InputStream getConfigurationStream() {
+		// Location of the property
+		return getStream(ResourceType.ASSET, "properties/cryptic.properties");
+	}
+
+	/**
+	 * Get the application configuration. The properties file is only read the
+	 * first time this is called. A missing file is treated as empty, so every
+	 * setting falls back to its default value.
+	 * 
+	 * @return the application configuration
+	 */
+	private synchronized Properties getConfiguration() {
+		if (configuration == null) {
+			Properties properties = new Properties();
+			InputStream is = getConfigurationStream();
+			if (is != null) {
+				try (InputStream in = is) {
+					properties.load(in);
+				} catch (IOException e) {
+					System.err.println("Exception reading configuration.");
+				}
+			}
+			configuration = properties;
+		}
+		return configuration;
+	}
+
+	/**
+	 * Get a configuration setting as a String
+	 * 
+	 * @param key
+	 *            - the name of the setting
+	 * @param defaultValue
+	 *            - the value to use if the setting is not present
+	 * @return the value of the setting, or the default value
+	 */
+	public String getSetting(String key, String defaultValue) {
+		String value = getConfiguration().getProperty(key);
+		return value == null ? defaultValue : value.trim();
+	}
+
+	/**
+	 * Get a configuration setting as an integer
+	 * 
+	 * @param key
+	 *            - the name of the setting
+	 * @param defaultValue
+	 *            - the value to use if the setting is not present or invalid
+	 * @return the value of the setting, or the default value
+	 */
+	public int getIntSetting(String key, int defaultValue) {
+		try {
+			return Integer.parseInt(getSetting(key, String.valueOf(defaultValue)));
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid value for setting \"" + key + "\".");
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Get a configuration setting as a long
+	 * 
+	 * @param key
+	 *            - the name of the setting
+	 * @param defaultValue
+	 *            - the value to use if the setting is not present or invalid
+	 * @return the value of the setting, or the default value
+	 */
+	public long getLongSetting(String key, long defaultValue) {
+		try {
+			return Long.parseLong(getSetting(key, String.valueOf(defaultValue)));
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid value for setting \"" + key + "\".");
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Get a configuration setting as a double
+	 * 
+	 * @param key
+	 *            - the name of the setting
+	 * @param defaultValue
+	 *            - the value to use if the setting is not present or invalid
+	 * @return the value of the setting, or the default value
+	 */
+	public double getDoubleSetting(String key, double defaultValue) {
+		try {
+			return Double.parseDouble(getSetting(key,
+					String.valueOf(defaultValue)));
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid value for setting \"" + key + "\".");
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Get a configuration setting as a boolean
+	 * 
+	 * @param key
+	 *            - the name of the setting
+	 * @param defaultValue
+	 *            - the value to use if the setting is not present
+	 * @return the value of the setting, or the default value
+	 */
+	public boolean getBooleanSetting(String key, boolean defaultValue) {
+		return Boolean.parseBoolean(getSetting(key,
+				String.valueOf(defaultValue)));
+	}
+
+	/**
+	 * Determine whether resources should be loaded from (and saved to)
+	 * precompiled snapshots
+	 * 
+	 * @return <code>true</code> if snapshots are enabled
+	 */
+	public boolean isSnapshotEnabled() {
+		return getBooleanSetting("snapshot.enabled", true);
+	}
+
+	/**
+	 * Get the location of a resource's snapshot. These are kept in the
+	 * directory given by the "snapshot.directory" setting, or the system's
+	 * temporary directory if not set.
+	 * 
+	 * @param name
+	 *            - the name of the snapshot, e.g. "dictionary"
+	 * @return the snapshot file
+	 */
+	public File getSnapshotFile(String name) {
+		String directory = getSetting("snapshot.directory", "");
+		File dir = directory.isEmpty() ? new File(
+				System.getProperty("java.io.tmpdir"), "cryptic-snapshot")
+				: new File(directory);
+		return new File(dir, name + ".snapshot");
+	}
+
+	/**
+	 * Determine if a snapshot is newer than all of the assets it was compiled
+	 * from. If the modification time of any asset can't be found, the
+	 * snapshot is assumed to be out of date.
+	 * 
+	 * @param snapshot
+	 *            - the snapshot file
+	 * @param resources
+	 *            - the paths of the assets the snapshot was compiled from
+	 * @return <code>true</code> if the snapshot can be used
+	 */
+	public boolean isSnapshotCurrent(File snapshot, String... resources) {
+		if (!snapshot.isFile()) {
+			return false;
+		}
+		for (String resource : resources) {
+			long modified = getLastModified(resource);
+			if (modified == 0 || modified >= snapshot.lastModified()) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -128,7 +364,7 @@ public class Settings {
 	 */
 	public InputStream getThesaurusStream() {
 		// Location of the resource
-		return getStream(ResourceType.ASSET, "thesaurus/gutenberg/mthesaur.txt");
+		return getStream(ResourceType.ASSET, THESAURUS);
 	}
 	
 	/**
@@ -138,7 +374,7 @@ public class Settings {
 	 */
 	public InputStream getCustomThesaurusStream() {
 		// Location of the resource
-		return getStream(ResourceType.ASSET, "thesaurus/custom.txt");
+		return getStream(ResourceType.ASSET, CUSTOM_THESAURUS);
 	}
 
 	/**
@@ -148,7 +384,7 @@ public class Settings {
 	 */
 	public InputStream getHomophoneDictionaryStream() {
 		// Location of the resource
-		return getStream(ResourceType.ASSET, "homophones/cmudict.0.7a");
+		return getStream(ResourceType.ASSET, HOMOPHONE_DICTIONARY);
 	}
 
 	/**
@@ -267,8 +503,13 @@ public class Settings {
 	 * @return Settings
 	 */
 	public static Settings getInstance() {
+		// Only lock if the instance hasn't been created yet
 		if (instance == null) {
-			instance = new Settings();
+			synchronized (Settings.class) {
+				if (instance == null) {
+					instance = new Settings();
+				}
+			}
 		}
 		return instance;
 	}
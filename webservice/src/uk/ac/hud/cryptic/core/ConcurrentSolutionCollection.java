@@ -0,0 +1,42 @@
+package uk.ac.hud.cryptic.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A <code>SolutionCollection</code> which several threads can add solutions to
+ * at once, such as the searches a solver runs in parallel. Adding a solution
+ * (and merging it with an equivalent already present) happens atomically,
+ * while looking solutions up doesn't take a lock. Iterating over the
+ * collection while solutions are still being added is safe, but may not see
+ * the latest additions.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class ConcurrentSolutionCollection extends SolutionCollection {
+
+	private static final long serialVersionUID = 2519475620470391687L;
+
+	/**
+	 * Create an empty collection
+	 */
+	public ConcurrentSolutionCollection() {
+		super(new ConcurrentHashMap<String, Solution>());
+	}
+
+	@Override
+	public synchronized boolean add(Solution s) {
+		return super.add(s);
+	}
+
+	@Override
+	public synchronized boolean remove(Object o) {
+		return super.remove(o);
+	}
+
+	@Override
+	public synchronized void clear() {
+		super.clear();
+	}
+
+} // End of class ConcurrentSolutionCollection
@@ -0,0 +1,333 @@
+package uk.ac.hud.cryptic.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.hud.cryptic.util.WordUtils;
+
+/**
+ * A crossword grid. Each cell of the grid is either a block, an empty cell or
+ * a cell with a known letter. The entries (the runs of two or more cells in
+ * which answers are written) are numbered in the usual way, working along
+ * each row from the top left, so that they can be matched up with their clues
+ * using ids such as "1a" and "2d".
+ *
+ * As answers are written into the grid, the letters they give to the entries
+ * which cross them narrow down the solution patterns of those entries.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class Grid {
+
+	// A cell which can't hold a letter
+	public static final char BLOCK = '#';
+	// A cell whose letter isn't known. '.' is accepted as well
+	public static final char EMPTY = SolutionPattern.UNKNOWN_CHARACTER;
+
+	// The cells of the grid, by row then column
+	private final char[][] cells;
+	// The entries of the grid, keyed by their ids, in order
+	private final Map<String, Entry> entries;
+
+	/**
+	 * Create a grid from its rows. Each character of a row is a cell, which is
+	 * '#' for a block, '?' or '.' for an empty cell, or a letter.
+	 *
+	 * @param rows
+	 *            - the rows of the grid, from top to bottom
+	 * @throws IllegalArgumentException
+	 *             if the rows aren't all the same length, or contain anything
+	 *             else
+	 */
+	public Grid(List<String> rows) {
+		if (rows.isEmpty()) {
+			throw new IllegalArgumentException("The grid has no rows.");
+		}
+		final int width = rows.get(0).length();
+		cells = new char[rows.size()][];
+		for (int r = 0; r < cells.length; r++) {
+			String row = rows.get(r).toLowerCase();
+			if (row.length() != width) {
+				throw new IllegalArgumentException("Row " + (r + 1)
+						+ " of the grid is not the same width as the first.");
+			}
+			cells[r] = row.replace('.', EMPTY).toCharArray();
+			for (char c : cells[r]) {
+				if (c != BLOCK && c != EMPTY && (c < 'a' || c > 'z')) {
+					throw new IllegalArgumentException("Row " + (r + 1)
+							+ " of the grid contains \"" + c + "\".");
+				}
+			}
+		}
+		entries = Collections.unmodifiableMap(numberEntries());
+	}
+
+	/**
+	 * Read a grid from text, with one row on each line. Blank lines are
+	 * ignored.
+	 *
+	 * @param text
+	 *            - the rows of the grid
+	 * @return the grid
+	 * @throws IllegalArgumentException
+	 *             if the grid isn't valid
+	 */
+	public static Grid parse(String text) {
+		List<String> rows = new ArrayList<>();
+		for (String line : text.split("\\r?\\n")) {
+			line = line.trim();
+			if (!line.isEmpty()) {
+				rows.add(line);
+			}
+		}
+		return new Grid(rows);
+	}
+
+	/**
+	 * Find the entries of the grid and give them their numbers
+	 *
+	 * @return the entries of the grid, keyed by their ids
+	 */
+	private Map<String, Entry> numberEntries() {
+		Map<String, Entry> numbered = new LinkedHashMap<>();
+		int number = 0;
+		for (int r = 0; r < cells.length; r++) {
+			for (int c = 0; c < cells[r].length; c++) {
+				// An entry starts where the previous cell is blocked (or off
+				// the grid) and the next is not
+				boolean across = isOpen(r, c) && !isOpen(r, c - 1)
+						&& isOpen(r, c + 1);
+				boolean down = isOpen(r, c) && !isOpen(r - 1, c)
+						&& isOpen(r + 1, c);
+				if (!across && !down) {
+					continue;
+				}
+				number++;
+				if (across) {
+					int length = 0;
+					while (isOpen(r, c + length)) {
+						length++;
+					}
+					Entry entry = new Entry(number, true, r, c, length);
+					numbered.put(entry.getId(), entry);
+				}
+				if (down) {
+					int length = 0;
+					while (isOpen(r + length, c)) {
+						length++;
+					}
+					Entry entry = new Entry(number, false, r, c, length);
+					numbered.put(entry.getId(), entry);
+				}
+			}
+		}
+		return numbered;
+	}
+
+	/**
+	 * @return <code>true</code> if the cell is on the grid and isn't a block
+	 */
+	private boolean isOpen(int row, int column) {
+		return row >= 0 && row < cells.length && column >= 0
+				&& column < cells[row].length && cells[row][column] != BLOCK;
+	}
+
+	/**
+	 * @return the entries of the grid, in order of their numbers
+	 */
+	public Collection<Entry> getEntries() {
+		return entries.values();
+	}
+
+	/**
+	 * Get an entry by its id
+	 *
+	 * @param id
+	 *            - the id of the entry, e.g. "1a" or "2d"
+	 * @return the entry, or <code>null</code> if there isn't one
+	 */
+	public Entry getEntry(String id) {
+		return entries.get(id.toLowerCase());
+	}
+
+	/**
+	 * Get the letters which are known for an entry, with '?' for those which
+	 * aren't
+	 *
+	 * @param entry
+	 *            - the entry
+	 * @return the letters of the entry, e.g. "?a??e??"
+	 */
+	public String getLetters(Entry entry) {
+		char[] letters = new char[entry.length];
+		for (int i = 0; i < entry.length; i++) {
+			letters[i] = cells[entry.getRow(i)][entry.getColumn(i)];
+		}
+		return new String(letters);
+	}
+
+	/**
+	 * @return <code>true</code> if every cell of the entry holds a letter
+	 */
+	public boolean isComplete(Entry entry) {
+		return getLetters(entry).indexOf(EMPTY) < 0;
+	}
+
+	/**
+	 * Write an answer into the grid
+	 *
+	 * @param entry
+	 *            - the entry the answer is for
+	 * @param answer
+	 *            - the answer, which may contain spaces and hyphens
+	 * @return the entries whose letters have changed as a result (those
+	 *         crossing the given entry at a cell which was empty)
+	 * @throws IllegalArgumentException
+	 *             if the answer doesn't fit the letters already in the entry
+	 */
+	public Collection<Entry> fill(Entry entry, String answer) {
+		String letters = WordUtils.removeSpacesAndHyphens(answer).toLowerCase();
+		if (!SolutionPattern.match(getLetters(entry), letters)) {
+			throw new IllegalArgumentException("\"" + answer
+					+ "\" doesn't fit " + entry.getId() + ".");
+		}
+
+		Collection<Entry> changed = new ArrayList<>();
+		for (int i = 0; i < entry.length; i++) {
+			int r = entry.getRow(i);
+			int c = entry.getColumn(i);
+			if (cells[r][c] == EMPTY) {
+				cells[r][c] = letters.charAt(i);
+				Entry crosser = getCrossingEntry(entry, r, c);
+				if (crosser != null) {
+					changed.add(crosser);
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Find the entry which crosses the given one at a cell
+	 *
+	 * @param entry
+	 *            - the entry
+	 * @param row
+	 *            - the row of the cell
+	 * @param column
+	 *            - the column of the cell
+	 * @return the crossing entry, or <code>null</code> if the cell is unchecked
+	 */
+	private Entry getCrossingEntry(Entry entry, int row, int column) {
+		for (Entry other : entries.values()) {
+			if (other.across != entry.across && other.contains(row, column)) {
+				return other;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the rows of the grid, as they would be given to the constructor
+	 */
+	public List<String> getRows() {
+		List<String> rows = new ArrayList<>(cells.length);
+		for (char[] row : cells) {
+			rows.add(new String(row));
+		}
+		return rows;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (char[] row : cells) {
+			sb.append(row).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * A run of cells in which an answer is written
+	 */
+	public static class Entry {
+		private final int number;
+		private final boolean across;
+		private final int row;
+		private final int column;
+		private final int length;
+
+		private Entry(int number, boolean across, int row, int column,
+				int length) {
+			this.number = number;
+			this.across = across;
+			this.row = row;
+			this.column = column;
+			this.length = length;
+		}
+
+		/**
+		 * @return the id of the entry, such as "1a" or "2d"
+		 */
+		public String getId() {
+			return number + (across ? "a" : "d");
+		}
+
+		/**
+		 * @return the number of the entry
+		 */
+		public int getNumber() {
+			return number;
+		}
+
+		/**
+		 * @return <code>true</code> if the entry reads across,
+		 *         <code>false</code> if it reads down
+		 */
+		public boolean isAcross() {
+			return across;
+		}
+
+		/**
+		 * @return the number of cells in the entry
+		 */
+		public int getLength() {
+			return length;
+		}
+
+		/**
+		 * @return the row of the i'th cell of the entry
+		 */
+		private int getRow(int i) {
+			return across ? row : row + i;
+		}
+
+		/**
+		 * @return the column of the i'th cell of the entry
+		 */
+		private int getColumn(int i) {
+			return across ? column + i : column;
+		}
+
+		/**
+		 * @return <code>true</code> if the entry includes the given cell
+		 */
+		private boolean contains(int r, int c) {
+			if (across) {
+				return r == row && c >= column && c < column + length;
+			}
+			return c == column && r >= row && r < row + length;
+		}
+
+		@Override
+		public String toString() {
+			return getId();
+		}
+	}
+
+} // End of class Grid
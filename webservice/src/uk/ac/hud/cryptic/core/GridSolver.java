@@ -0,0 +1,321 @@
+package uk.ac.hud.cryptic.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import uk.ac.hud.cryptic.config.Settings;
+import uk.ac.hud.cryptic.core.Grid.Entry;
+import uk.ac.hud.cryptic.util.WordUtils;
+
+/**
+ * Solves all of the clues of a crossword together. Clues are solved one at a
+ * time, starting with the one which has the most letters given to it by the
+ * answers already in the grid, as the solvers can make use of every known
+ * letter. Whenever an answer is confident enough, it is written into the grid
+ * and the letters it gives to the crossing entries are used to filter down
+ * the solutions already found for them. This carries on until nothing more
+ * can be filled in, and only then is the next clue solved. A clue is only
+ * solved again if none of its solutions fit the letters it has since been
+ * given, as the solvers may then find others.
+ *
+ * An answer is written into the grid if its confidence is at least
+ * "grid.fillConfidence" and higher than that of any other solution left for
+ * its clue. Answers can't be taken back out of the grid, so even the only
+ * solution left isn't written in unless it's confident enough, as a wrong
+ * answer would filter out the right solutions of every crossing clue.
+ *
+ * @author Stuart Leader
+ * @version 0.2
+ */
+public class GridSolver {
+
+	// The confidence an answer needs to be written into the grid, unless
+	// configured otherwise
+	private static final double DEFAULT_FILL_CONFIDENCE = 60;
+	// An enumeration, such as "4,3" or "5-2"
+	private static final Pattern ENUMERATION = Pattern
+			.compile("[0-9]+([,-][0-9]+)*");
+
+	// The grid, which is filled in as the clues are solved
+	private final Grid grid;
+	// The text of each clue
+	private final Map<Entry, String> clues = new LinkedHashMap<>();
+	// The enumeration of each clue, if it is made up of more than one word
+	private final Map<Entry, String> enumerations = new LinkedHashMap<>();
+	// The solutions which still fit each entry whose clue has been solved
+	private final Map<Entry, SolutionCollection> solutions = new LinkedHashMap<>();
+	// The letters each entry had when its clue was last solved
+	private final Map<Entry, String> solvedLetters = new HashMap<>();
+	// The answers which have been written into the grid
+	private final Map<Entry, String> answers = new LinkedHashMap<>();
+	// Solves the individual clues
+	private final Manager manager;
+	// The confidence an answer needs to be written into the grid
+	private final double fillConfidence;
+
+	/**
+	 * Create a solver for a grid, with the confidence needed to fill in an
+	 * answer taken from the application settings
+	 *
+	 * @param grid
+	 *            - the grid to fill in
+	 */
+	public GridSolver(Grid grid) {
+		this(grid, new Manager(), Settings.getInstance().getDoubleSetting(
+				"grid.fillConfidence", DEFAULT_FILL_CONFIDENCE));
+	}
+
+	/**
+	 * Create a solver for a grid
+	 *
+	 * @param grid
+	 *            - the grid to fill in
+	 * @param manager
+	 *            - solves the individual clues
+	 * @param fillConfidence
+	 *            - the confidence an answer needs to be written into the grid
+	 */
+	GridSolver(Grid grid, Manager manager, double fillConfidence) {
+		this.grid = grid;
+		this.manager = manager;
+		this.fillConfidence = fillConfidence;
+	}
+
+	/**
+	 * Give the clue for an entry of the grid
+	 *
+	 * @param id
+	 *            - the id of the entry, such as "1a"
+	 * @param clue
+	 *            - the text of the clue
+	 * @param enumeration
+	 *            - the lengths of the words of the answer, such as "4,3", or
+	 *            <code>null</code> if the answer is a single word
+	 * @throws IllegalArgumentException
+	 *             if there is no such entry, or the enumeration doesn't fit it
+	 */
+	public void addClue(String id, String clue, String enumeration) {
+		Entry entry = grid.getEntry(id);
+		if (entry == null) {
+			throw new IllegalArgumentException("There is no " + id
+					+ " in the grid.");
+		}
+		if (enumeration != null) {
+			if (!ENUMERATION.matcher(enumeration).matches()) {
+				throw new IllegalArgumentException("The enumeration of " + id
+						+ " isn't valid.");
+			}
+			int length = 0;
+			for (String word : enumeration.split(WordUtils.REGEX_SEPARATORS)) {
+				length += Integer.parseInt(word);
+			}
+			if (length != entry.getLength()) {
+				throw new IllegalArgumentException("The enumeration of " + id
+						+ " doesn't fit the grid.");
+			}
+			enumerations.put(entry, enumeration);
+		}
+		clues.put(entry, clue);
+	}
+
+	/**
+	 * Solve the clues and fill in the grid
+	 */
+	public void solve() {
+		Entry next;
+		do {
+			propagate();
+			next = getNextClue();
+			if (next != null) {
+				Clue clue = new Clue(clues.get(next), getPattern(next)
+						.toString());
+				solvedLetters.put(next, grid.getLetters(next));
+				solutions.put(next, manager.distributeAndSolveClue(clue));
+			}
+		} while (next != null && !Thread.currentThread().isInterrupted());
+		propagate();
+	}
+
+	/**
+	 * Filter the solutions of each entry down to those which fit its letters,
+	 * and fill in any confident answers, until nothing more changes. An entry
+	 * left with no solutions that fit is put back to be solved again with its
+	 * new letters.
+	 */
+	private void propagate() {
+		boolean changed;
+		do {
+			changed = false;
+			Iterator<Map.Entry<Entry, SolutionCollection>> it = solutions
+					.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<Entry, SolutionCollection> e = it.next();
+				Entry entry = e.getKey();
+				if (answers.containsKey(entry)) {
+					continue;
+				}
+				SolutionCollection fitting = e.getValue();
+				getPattern(entry).filterSolutions(fitting);
+				if (fitting.isEmpty() && hasNewLetters(entry)) {
+					it.remove();
+					continue;
+				}
+
+				Solution answer = getConfidentAnswer(fitting);
+				if (answer != null) {
+					grid.fill(entry, answer.getSolution());
+					answers.put(entry, answer.getSolution());
+					changed = true;
+				}
+			}
+		} while (changed);
+	}
+
+	/**
+	 * Pick out a solution which is good enough to write into the grid
+	 *
+	 * @param fitting
+	 *            - the solutions which fit the entry
+	 * @return the answer, or <code>null</code> if there isn't a confident one
+	 */
+	private Solution getConfidentAnswer(SolutionCollection fitting) {
+		Solution best = null;
+		boolean tied = false;
+		for (Solution s : fitting) {
+			if (best == null || s.getConfidence() > best.getConfidence()) {
+				best = s;
+				tied = false;
+			} else if (s.getConfidence() == best.getConfidence()) {
+				tied = true;
+			}
+		}
+		if (best == null || tied || best.getConfidence() < fillConfidence) {
+			return null;
+		}
+		return best;
+	}
+
+	/**
+	 * Check whether an entry has been given letters since its clue was last
+	 * solved
+	 *
+	 * @param entry
+	 *            - the entry
+	 * @return <code>true</code> if its clue hasn't been solved with the
+	 *         letters it has now
+	 */
+	private boolean hasNewLetters(Entry entry) {
+		return !grid.getLetters(entry).equals(solvedLetters.get(entry));
+	}
+
+	/**
+	 * Choose the next clue to solve, which is the one with the most letters
+	 * already known
+	 *
+	 * @return the entry of the clue, or <code>null</code> if every clue has
+	 *         been solved
+	 */
+	private Entry getNextClue() {
+		Entry next = null;
+		int mostKnown = -1;
+		for (Entry entry : clues.keySet()) {
+			if (solutions.containsKey(entry) || !hasNewLetters(entry)) {
+				continue;
+			}
+			int known = 0;
+			for (char c : grid.getLetters(entry).toCharArray()) {
+				if (c != Grid.EMPTY) {
+					known++;
+				}
+			}
+			if (known > mostKnown) {
+				next = entry;
+				mostKnown = known;
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Get the solution pattern of an entry, from the letters in the grid and
+	 * the enumeration of its clue
+	 *
+	 * @param entry
+	 *            - the entry
+	 * @return the solution pattern, e.g. "?a??,e??"
+	 */
+	public SolutionPattern getPattern(Entry entry) {
+		String letters = grid.getLetters(entry);
+		String enumeration = enumerations.get(entry);
+		if (enumeration == null) {
+			return new SolutionPattern(letters);
+		}
+
+		// Put the separators of the enumeration between the letters
+		StringBuilder pattern = new StringBuilder();
+		int start = 0;
+		int length = 0;
+		for (char c : enumeration.toCharArray()) {
+			if (Character.isDigit(c)) {
+				length = length * 10 + (c - '0');
+			} else {
+				pattern.append(letters, start, start + length).append(c);
+				start += length;
+				length = 0;
+			}
+		}
+		pattern.append(letters, start, letters.length());
+		return new SolutionPattern(pattern.toString());
+	}
+
+	/**
+	 * @return the grid, with the answers which have been filled in
+	 */
+	public Grid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * @return the entries which have been given clues, in the order they were
+	 *         given
+	 */
+	public Collection<Entry> getClueEntries() {
+		return new ArrayList<>(clues.keySet());
+	}
+
+	/**
+	 * @return the text of the clue for an entry, or <code>null</code>
+	 */
+	public String getClue(Entry entry) {
+		return clues.get(entry);
+	}
+
+	/**
+	 * @return the answer written into the grid for an entry, or
+	 *         <code>null</code> if it hasn't been filled in
+	 */
+	public String getAnswer(Entry entry) {
+		return answers.get(entry);
+	}
+
+	/**
+	 * @return the solutions which still fit an entry, or <code>null</code> if
+	 *         its clue hasn't been solved
+	 */
+	public SolutionCollection getSolutions(Entry entry) {
+		return solutions.get(entry);
+	}
+
+	/**
+	 * @return the number of clues which have been run through the solvers
+	 */
+	public int getSolvedCount() {
+		return solvedLetters.size();
+	}
+
+} // End of class GridSolver
@@ -1,19 +1,24 @@
 package uk.ac.hud.cryptic.core;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import uk.ac.hud.cryptic.config.Settings;
+import uk.ac.hud.cryptic.core.SolverScheduler.Scheduled;
 import uk.ac.hud.cryptic.resource.Categoriser;
+import uk.ac.hud.cryptic.resource.Thesaurus;
 import uk.ac.hud.cryptic.solver.Acrostic;
 import uk.ac.hud.cryptic.solver.Hidden;
 import uk.ac.hud.cryptic.solver.Pattern;
@@ -27,128 +32,421 @@ import uk.ac.hud.cryptic.util.DB;
  * implementations. The <code>SolutionCollection</code>s from each of these are
  * then combined into a single collection object.
  * 
+ * The <code>SolverScheduler</code> decides which solvers are run, and how much
+ * of the time budget each of them is given, from the indicator words in the
+ * clue.
+ * 
+ * Optionally, the solvers can be stopped as soon as a confident answer is
+ * found. An answer counts as confident if its confidence reaches
+ * "manager.stopConfidence" and it is backed up by a second signal: either
+ * another solver has found it too, or it is a synonym of one of the clue's
+ * words. The remaining solvers are then cancelled and the solutions found so
+ * far are returned, marked as partial.
+ * 
  * @author Stuart Leader, Mohammad Rahman
- * @version 0.2
+ * @version 0.4
  */
 public class Manager {
 
+	// Milliseconds the solvers may take, unless configured otherwise
+	private static final long DEFAULT_TIME_BUDGET = 30000;
+	// Never stop the solvers early, unless configured otherwise
+	private static final double DEFAULT_STOP_CONFIDENCE = 0;
+
+	// The confidence of an answer which stops the solvers early (0 = never)
+	private final double stopConfidence;
+
+	/**
+	 * Default constructor. Whether to stop the solvers once a confident answer
+	 * is found is taken from the application settings.
+	 */
+	public Manager() {
+		this(Settings.getInstance().getDoubleSetting("manager.stopConfidence",
+				DEFAULT_STOP_CONFIDENCE));
+	}
+
+	/**
+	 * Create a manager which stops the solvers once a confident answer is
+	 * found
+	 * 
+	 * @param stopConfidence
+	 *            - the confidence an answer needs to stop the remaining
+	 *            solvers, or 0 to always wait for every solver
+	 */
+	public Manager(double stopConfidence) {
+		this.stopConfidence = stopConfidence;
+	}
+
 	/**
 	 * This method could take some input from the Servlet / Controller in the
 	 * form of a <code>Clue</code> object and return a
 	 * <code>SolutionCollection</code> of the potential solutions that have been
-	 * calculated.
+	 * calculated. The solvers are given the time budget set by
+	 * "manager.timeBudget" in the application configuration.
 	 * 
 	 * @param clue
 	 *            - the <code>Clue</code> object to get solutions for
 	 * @return the calculated solutions to the given clue
 	 */
 	public SolutionCollection distributeAndSolveClue(Clue clue) {
+		return distributeAndSolveClue(clue, (SolutionListener) null);
+	}
+
+	/**
+	 * Solve a clue within the configured time budget, passing the solutions of
+	 * each solver to a listener as soon as that solver finishes
+	 * 
+	 * @param clue
+	 *            - the <code>Clue</code> object to get solutions for
+	 * @param listener
+	 *            - receives the solutions of each solver in the order they
+	 *            finish, or <code>null</code>
+	 * @return the calculated solutions to the given clue
+	 * @see #distributeAndSolveClue(Clue, long, SolutionListener)
+	 */
+	public SolutionCollection distributeAndSolveClue(Clue clue,
+			SolutionListener listener) {
+		return distributeAndSolveClue(clue, Settings.getInstance()
+				.getLongSetting("manager.timeBudget", DEFAULT_TIME_BUDGET),
+				listener);
+	}
+
+	/**
+	 * Solve a clue, allowing the solvers no more than the given time. Once the
+	 * time is up, any solvers which haven't finished are cancelled and the
+	 * solutions found so far are returned, marked as partial.
+	 * 
+	 * @param clue
+	 *            - the <code>Clue</code> object to get solutions for
+	 * @param timeBudget
+	 *            - milliseconds the solvers may take, or 0 for no limit
+	 * @return the calculated solutions to the given clue
+	 */
+	public SolutionCollection distributeAndSolveClue(Clue clue, long timeBudget) {
+		return distributeAndSolveClue(clue, timeBudget, null);
+	}
 
-		// This will hold the solvers to be run at runtime
-		Collection<Solver> solvers = getSolversFromClasses(clue);
+	/**
+	 * Solve a clue, passing the solutions of each solver to a listener as soon
+	 * as that solver finishes. Once every solver has finished (or the time is
+	 * up), all of the solutions are returned together, with their confidence
+	 * adjusted by the categoriser. Interrupting the calling thread, such as
+	 * from within the listener, cancels the solvers which are still running.
+	 * If the clue has been solved recently, the earlier results are returned
+	 * (marked as cached) without running the solvers at all; they are still
+	 * passed to the listener, one solver at a time, in the order the solvers
+	 * would have been run.
+	 * 
+	 * @param clue
+	 *            - the <code>Clue</code> object to get solutions for
+	 * @param timeBudget
+	 *            - milliseconds the solvers may take, or 0 for no limit
+	 * @param listener
+	 *            - receives the solutions of each solver in the order they
+	 *            finish, or <code>null</code>
+	 * @return the calculated solutions to the given clue
+	 */
+	public SolutionCollection distributeAndSolveClue(Clue clue,
+			long timeBudget, SolutionListener listener) {
+		// Don't solve the same clue twice
+		ResultCache cache = ResultCache.getInstance();
+		SolutionCollection cached = cache.get(clue);
+		if (cached != null) {
+			if (listener != null) {
+				replay(clue, cached, listener);
+			}
+			return cached;
+		}
 
-		// This will hold the returned data from the solvers
-		Collection<Future<SolutionCollection>> solutions = initiateSolvers(solvers);
+		// When solving started, which the solvers' time budgets count from
+		final long start = System.nanoTime();
+
+		// This will hold the solvers to be run, most likely first
+		List<Scheduled> solvers = getScheduledSolvers(clue);
 
 		// This will hold all solutions that have been returned
 		SolutionCollection allSolutions = new SolutionCollection();
 
-		// Now we need to 'unpack' the SolutionCollections
-		for (Future<SolutionCollection> future : solutions) {
-			try {
-				allSolutions.addAll(future.get());
-			} catch (InterruptedException | ExecutionException e) {
-				e.printStackTrace();
+		// Wait for a place on the shared executor (or give up)
+		SolverExecutor executor = SolverExecutor.getInstance();
+		executor.admit();
+		// Solvers are added to this as they finish
+		BlockingQueue<Future<SolutionCollection>> completed = new LinkedBlockingQueue<>();
+		// This will hold the returned data from the solvers, with the solvers
+		Map<Future<SolutionCollection>, Scheduled> solutions = new HashMap<>();
+		// When each solver needs to have finished by
+		Map<Future<SolutionCollection>, Long> deadlines = new HashMap<>();
+		try {
+			solutions = initiateSolvers(executor, clue, solvers, completed);
+			// Some solvers may have been turned away
+			boolean partial = solutions.size() < solvers.size();
+			if (timeBudget > 0) {
+				deadlines = getDeadlines(solutions, start, timeBudget);
+			}
+
+			// Now we need to 'unpack' the SolutionCollections, in the order
+			// the solvers finish. Solvers which run out of time are
+			// cancelled, which also adds them to the queue
+			for (int i = 0; i < solutions.size(); i++) {
+				Future<SolutionCollection> future = null;
+				if (timeBudget > 0) {
+					while (future == null) {
+						long now = System.nanoTime();
+						Long next = cancelOverdue(deadlines, now);
+						if (next == null) {
+							// Every solver has finished or been cancelled
+							future = completed.take();
+						} else {
+							future = completed.poll(next - now,
+									TimeUnit.NANOSECONDS);
+						}
+					}
+				} else {
+					future = completed.take();
+				}
+
+				try {
+					SolutionCollection found = future.get();
+					if (listener != null) {
+						listener.solutionsFound(solutions.get(future)
+								.toString(), found);
+					}
+					if (addAndCheckConfident(clue, allSolutions, found)) {
+						// No need to wait for the rest, which are cancelled
+						// below
+						partial |= i < solutions.size() - 1;
+						break;
+					}
+				} catch (CancellationException e) {
+					partial = true;
+				} catch (ExecutionException e) {
+					e.printStackTrace();
+				}
+			}
+			allSolutions.setPartial(partial);
+		} catch (InterruptedException e) {
+			// Stop waiting, but let the caller know
+			Thread.currentThread().interrupt();
+			allSolutions.setPartial(true);
+		} finally {
+			// Free up the threads of any solvers which are still going
+			for (Future<SolutionCollection> future : solutions.keySet()) {
+				future.cancel(true);
 			}
+			executor.release();
 		}
 
 		// Adjust confidence scores based on cateogory matches
 		Categoriser.getInstance().confidenceAdjust(clue, allSolutions);
 
+		// Keep the results for the next request for the clue
+		cache.put(clue, allSolutions);
 		return allSolutions;
 	}
 
 	/**
-	 * Instances of the solvers have been created and given the clue which is to
-	 * be solved. Now they should run their algorithms in order to attempt to
-	 * find the correct solution.
+	 * Add the solutions found by a solver to those found so far, checking
+	 * whether any of them is a confident answer
 	 * 
+	 * @param clue
+	 *            - the clue which is being solved
+	 * @param allSolutions
+	 *            - the solutions found so far
+	 * @param found
+	 *            - the solutions found by the solver
+	 * @return <code>true</code> if a confident answer has been found, so the
+	 *         remaining solvers can be stopped
+	 */
+	boolean addAndCheckConfident(Clue clue,
+			SolutionCollection allSolutions, SolutionCollection found) {
+		if (stopConfidence <= 0) {
+			allSolutions.addAll(found);
+			return false;
+		}
+
+		// Answers which another solver has already found
+		Set<String> agreed = new HashSet<>();
+		for (Solution s : found) {
+			Solution earlier = allSolutions.getSolution(s.getSolution());
+			if (earlier != null
+					&& !earlier.getSolverType().equals(s.getSolverType())) {
+				agreed.add(s.getSolution());
+			}
+		}
+		allSolutions.addAll(found);
+
+		Thesaurus thesaurus = Thesaurus.getInstance();
+		for (Solution s : found) {
+			// The merged solution, which may be more confident
+			Solution merged = allSolutions.getSolution(s.getSolution());
+			if (merged.getConfidence() < stopConfidence) {
+				continue;
+			}
+			// Check against a copy, so the trace isn't added to twice
+			if (agreed.contains(s.getSolution())
+					|| thesaurus.match(clue, new Solution(merged))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Create instances of the solvers and give them the clue which is to be
+	 * solved. Now they should run their algorithms in order to attempt to find
+	 * the correct solution. They are submitted most likely first, so they are
+	 * the first to start when the executor is busy.
+	 * 
+	 * @param executor
+	 *            - the shared executor to run the solvers on
+	 * @param clue
+	 *            - the clue which is to be solved
 	 * @param solvers
 	 *            - the solvers which will search for the solution
+	 * @param completed
+	 *            - the queue each solver is added to when it finishes
 	 * @return the Future objects which will hold the collections of solutions
-	 *         once they have been found
+	 *         once they have been found, with the solver of each
 	 */
-	private Collection<Future<SolutionCollection>> initiateSolvers(
-			Collection<Solver> solvers) {
-		Collection<Future<SolutionCollection>> solutions = new ArrayList<>();
-
-		// Create a thread pool to execute the solvers
-		ExecutorService executor = Executors.newFixedThreadPool(solvers.size());
+	private Map<Future<SolutionCollection>, Scheduled> initiateSolvers(
+			SolverExecutor executor, Clue clue, List<Scheduled> solvers,
+			BlockingQueue<Future<SolutionCollection>> completed) {
+		Map<Future<SolutionCollection>, Scheduled> solutions = new HashMap<>();
 
 		// Fire off each solver to find that magic solution
-		for (Solver s : solvers) {
-			Future<SolutionCollection> future = executor.submit(s);
-			solutions.add(future);
+		for (Scheduled scheduled : solvers) {
+			Solver s;
+			try {
+				s = scheduled.getSolver().create(clue);
+			} catch (ReflectiveOperationException e) {
+				e.printStackTrace();
+				continue;
+			}
+			try {
+				Future<SolutionCollection> future = executor.submit(
+						s.toString(), s, completed);
+				solutions.put(future, scheduled);
+			} catch (RejectedExecutionException e) {
+				// The executor is overloaded, carry on without this solver
+				System.err.println("Solver \"" + s + "\" was rejected: "
+						+ e.getMessage());
+			}
 		}
-
-		// All finished
-		executor.shutdown();
 		return solutions;
 	}
 
 	/**
-	 * Load the solvers in from their corresponding Class files.
+	 * Choose which of the configured solvers to run for the clue, and in what
+	 * order. The classes of the solvers are looked up once only, by the
+	 * <code>SolverRegistry</code>.
 	 * 
 	 * @param clue
 	 *            - the clue which is to be solved
-	 * @return a collection of Solver objects which have been loaded from their
-	 *         Class file(s)
+	 * @return the solvers to run, most likely first
+	 * @see SolverScheduler
 	 */
-	private Collection<Solver> getSolversFromClasses(Clue clue) {
-		Collection<Solver> solvers = new ArrayList<>();
-
-		// Create a new instance of Settings file to reload solvers in
-		// use
-		// TODO Shouldn't do this as Settings is a Singleton
-		// Settings settings = new Settings();
-		Settings settings = Settings.getInstance();
-
-		// Locate the properties file which contains available solvers
-		try (BufferedReader br = new BufferedReader(new InputStreamReader(
-				settings.getPropertyStream()))) {
+	private List<Scheduled> getScheduledSolvers(Clue clue) {
+		return SolverScheduler.getInstance().schedule(clue,
+				SolverRegistry.getInstance().getSolvers());
+	}
 
-			// An available solver
-			String strLine;
+	/**
+	 * Pass cached solutions to a listener as though each solver had just
+	 * found them, so the listener sees the same events whether or not the
+	 * clue has been solved before. Solvers which found nothing are reported
+	 * with an empty collection, as they would be when actually run.
+	 * 
+	 * @param clue
+	 *            - the clue the solutions are for
+	 * @param cached
+	 *            - the solutions taken from the result cache
+	 * @param listener
+	 *            - receives the solutions of each solver
+	 */
+	private void replay(Clue clue, SolutionCollection cached,
+			SolutionListener listener) {
+		// Split the solutions up by the solver which found them
+		Map<String, SolutionCollection> found = new LinkedHashMap<>();
+		for (Solution solution : cached) {
+			SolutionCollection solutions = found.get(solution.getSolverType());
+			if (solutions == null) {
+				solutions = new SolutionCollection();
+				found.put(solution.getSolverType(), solutions);
+			}
+			solutions.add(solution);
+		}
 
-			// Read File Line By Line
-			while ((strLine = br.readLine()) != null) {
+		// Report them in the order the solvers would be run
+		for (Scheduled solver : getScheduledSolvers(clue)) {
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			SolutionCollection solutions = found.remove(solver.toString());
+			listener.solutionsFound(solver.toString(),
+					solutions == null ? new SolutionCollection() : solutions);
+		}
+		// Then any found by solvers which are no longer scheduled
+		for (Map.Entry<String, SolutionCollection> entry : found.entrySet()) {
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			listener.solutionsFound(entry.getKey(), entry.getValue());
+		}
+	}
 
-				if (strLine.startsWith("#")) {
-					// Ignore commented lines
-					continue;
-				}
+	/**
+	 * Work out when each solver needs to have finished by. The most likely
+	 * solvers get the whole time budget, the others only a share of it.
+	 * 
+	 * @param solutions
+	 *            - the solvers which were started
+	 * @param start
+	 *            - when solving started, from <code>System.nanoTime()</code>
+	 * @param timeBudget
+	 *            - milliseconds the solvers may take
+	 * @return the deadline of each solver
+	 */
+	private Map<Future<SolutionCollection>, Long> getDeadlines(
+			Map<Future<SolutionCollection>, Scheduled> solutions, long start,
+			long timeBudget) {
+		SolverScheduler scheduler = SolverScheduler.getInstance();
+		Map<Future<SolutionCollection>, Long> deadlines = new HashMap<>();
+		for (Map.Entry<Future<SolutionCollection>, Scheduled> e : solutions
+				.entrySet()) {
+			long budget = scheduler.getTimeBudget(e.getValue(), timeBudget);
+			deadlines.put(e.getKey(),
+					start + TimeUnit.MILLISECONDS.toNanos(budget));
+		}
+		return deadlines;
+	}
 
-				try {
-					// System.out.println(strLine);
-					// Load the class
-					Class<?> cls = Class.forName(strLine);
-					Constructor<?> c = cls.getDeclaredConstructor(Clue.class);
-					// Instantiate class
-					Solver solver = (Solver) c.newInstance(clue);
-					// Add to solvers
-					solvers.add(solver);
-
-				} catch (ClassNotFoundException | NoSuchMethodException
-						| SecurityException | InstantiationException
-						| IllegalAccessException | IllegalArgumentException
-						| InvocationTargetException e) {
-					e.printStackTrace();
-				}
+	/**
+	 * Cancel the solvers which have run out of time
+	 * 
+	 * @param deadlines
+	 *            - when each solver needs to have finished by
+	 * @param now
+	 *            - the current time, from <code>System.nanoTime()</code>
+	 * @return the earliest deadline of the solvers still running, or
+	 *         <code>null</code> if none are
+	 */
+	private static Long cancelOverdue(
+			Map<Future<SolutionCollection>, Long> deadlines, long now) {
+		Long next = null;
+		for (Map.Entry<Future<SolutionCollection>, Long> e : deadlines
+				.entrySet()) {
+			Future<SolutionCollection> future = e.getKey();
+			if (future.isDone()) {
+				continue;
+			}
+			long deadline = e.getValue();
+			if (deadline - now <= 0) {
+				future.cancel(true);
+			} else if (next == null || deadline - next < 0) {
+				next = deadline;
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
-		return solvers;
+		return next;
 	}
 
 	/**
@@ -0,0 +1,262 @@
+package uk.ac.hud.cryptic.core;
+
+import java.util.Set;
+
+import uk.ac.hud.cryptic.config.Settings;
+import uk.ac.hud.cryptic.util.Cache;
+import uk.ac.hud.cryptic.util.WordUtils;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The solutions to clues which have already been solved. The same published
+ * clues are often submitted again and again, and solving each of them means
+ * running every solver, so the results are kept and handed straight back for
+ * the next request for the same clue.
+ *
+ * Clues are matched on their text (ignoring case, punctuation and spacing)
+ * along with their solution pattern. Results which are missing solutions, as
+ * the solvers ran out of time, aren't kept. Cached results expire after
+ * "cache.results.expireAfterWrite" milliseconds, and are all dropped whenever
+ * the dictionary, thesaurus or solvers are (re)loaded.
+ *
+ * Users often fill in letters of the solution as they go, submitting
+ * "???????", then "?a?????", then "?a??e??" for the same clue. Every solution
+ * to a refined pattern is also a solution to the pattern it refines, so rather
+ * than solving the clue again, the solutions to the earlier pattern are
+ * filtered down to those matching the new one.
+ *
+ * @author Stuart Leader
+ * @version 0.2
+ */
+public class ResultCache {
+
+	// Singleton instance
+	private static volatile ResultCache instance;
+	// Settings Instance
+	private static Settings settings = Settings.getInstance();
+
+	// The solutions, keyed by the normalised clue and pattern
+	private final Cache<String, Entry> cache;
+	// The patterns with cached solutions, keyed by the normalised clue. May
+	// include patterns whose solutions have since been evicted
+	private final Cache<String, Set<String>> patterns;
+	// Whether results should be cached at all
+	private final boolean enabled;
+
+	/**
+	 * Default constructor. Sizes the cache from the application settings.
+	 */
+	private ResultCache() {
+		this(settings.getLongSetting("cache.results.capacity", 1000), settings
+				.getLongSetting("cache.results.expireAfterWrite", 3600000));
+	}
+
+	/**
+	 * Create a cache holding the results of a given number of clues
+	 *
+	 * @param capacity
+	 *            - the maximum number of clues to hold, or 0 to disable the
+	 *            cache
+	 * @param expireAfterWrite
+	 *            - milliseconds the results of a clue remain valid for, or 0
+	 *            if they should never expire
+	 */
+	ResultCache(long capacity, long expireAfterWrite) {
+		enabled = capacity > 0;
+		cache = new Cache<String, Entry>(capacity, Cache.SINGLETON_WEIGHER,
+				expireAfterWrite);
+		patterns = new Cache<String, Set<String>>(capacity,
+				Cache.SINGLETON_WEIGHER, expireAfterWrite);
+	}
+
+	/**
+	 * This method will return the current (and only) instance of the
+	 * ResultCache object.
+	 *
+	 * @return the result cache
+	 */
+	public static ResultCache getInstance() {
+		// Only lock if the instance hasn't been created yet
+		if (instance == null) {
+			synchronized (ResultCache.class) {
+				if (instance == null) {
+					instance = new ResultCache();
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Get the solutions found for an earlier request for the same clue. If
+	 * the clue hasn't been solved with this pattern, but has with a pattern
+	 * this one refines, those solutions are filtered down to the ones which
+	 * match this pattern.
+	 *
+	 * @param clue
+	 *            - the clue to be solved
+	 * @return a copy of the solutions, marked as cached, or <code>null</code>
+	 *         if the clue hasn't been solved recently (or none of the earlier
+	 *         solutions match the refined pattern)
+	 */
+	public SolutionCollection get(Clue clue) {
+		if (!enabled) {
+			return null;
+		}
+		String text = WordUtils.normaliseInput(clue.getClue(), false);
+		SolutionPattern pattern = clue.getPattern();
+		Entry entry = getEntry(text, pattern.toString());
+		if (entry != null) {
+			SolutionCollection solutions = copy(entry.solutions);
+			solutions.setCached(true);
+			return solutions;
+		}
+
+		// Look for the most specific pattern which this one refines
+		Set<String> known = patterns.get(text);
+		if (known == null) {
+			return null;
+		}
+		Entry general = null;
+		for (String p : known) {
+			if (!pattern.isRefinementOf(new SolutionPattern(p))) {
+				continue;
+			}
+			Entry candidate = getEntry(text, p);
+			// The fewer solutions, the less filtering to do
+			if (candidate != null
+					&& (general == null || candidate.solutions.size() < general.solutions
+							.size())) {
+				general = candidate;
+			}
+		}
+		if (general == null) {
+			return null;
+		}
+
+		SolutionCollection solutions = new SolutionCollection();
+		for (Solution s : general.solutions) {
+			if (pattern.match(s.getSolution())) {
+				solutions.add(new Solution(s));
+			}
+		}
+		if (solutions.isEmpty()) {
+			// Perhaps the solvers can do better with the extra letters
+			return null;
+		}
+		// Save filtering again if the same pattern is submitted again
+		put(text, pattern.toString(), new Entry(copy(solutions)));
+		solutions.setCached(true);
+		return solutions;
+	}
+
+	/**
+	 * Get the cached solutions for a clue and pattern
+	 *
+	 * @param text
+	 *            - the normalised clue
+	 * @param pattern
+	 *            - the solution pattern
+	 * @return the cached solutions, or <code>null</code> if there aren't any
+	 */
+	private Entry getEntry(String text, String pattern) {
+		return cache.get(getKey(text, pattern));
+	}
+
+	/**
+	 * Keep the solutions to a clue, ready for the next request for it. Partial
+	 * results aren't kept.
+	 *
+	 * @param clue
+	 *            - the clue which has been solved
+	 * @param solutions
+	 *            - the solutions which have been found
+	 */
+	public void put(Clue clue, SolutionCollection solutions) {
+		if (!enabled || solutions.isPartial()) {
+			return;
+		}
+		put(WordUtils.normaliseInput(clue.getClue(), false), clue.getPattern()
+				.toString(), new Entry(copy(solutions)));
+	}
+
+	/**
+	 * Cache the solutions for a clue and pattern
+	 *
+	 * @param text
+	 *            - the normalised clue
+	 * @param pattern
+	 *            - the solution pattern
+	 * @param entry
+	 *            - the solutions to cache
+	 */
+	private void put(String text, String pattern, Entry entry) {
+		cache.put(getKey(text, pattern), entry);
+		// Record the pattern, so that refinements of it can be found
+		Set<String> known = patterns.get(text);
+		if (known == null) {
+			patterns.put(text, ImmutableSet.of(pattern));
+		} else if (!known.contains(pattern)) {
+			patterns.put(text, ImmutableSet.<String> builder().addAll(known)
+					.add(pattern).build());
+		}
+	}
+
+	/**
+	 * Remove the results of every clue
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+		patterns.invalidateAll();
+	}
+
+	/**
+	 * @return the number of clues with cached results
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Create the key for a clue, which is the same for any clue which differs
+	 * only by case, punctuation or spacing
+	 *
+	 * @param text
+	 *            - the normalised clue
+	 * @param pattern
+	 *            - the solution pattern
+	 * @return the key to find the clue's results with
+	 */
+	private static String getKey(String text, String pattern) {
+		return text + "|" + pattern;
+	}
+
+	/**
+	 * Copy the solutions, so that neither the cache nor the caller can change
+	 * the other's
+	 *
+	 * @param solutions
+	 *            - the solutions to copy
+	 * @return an independent copy of the solutions
+	 */
+	private static SolutionCollection copy(SolutionCollection solutions) {
+		SolutionCollection copy = new SolutionCollection();
+		for (Solution s : solutions) {
+			copy.add(new Solution(s));
+		}
+		return copy;
+	}
+
+	/**
+	 * The solutions to a clue
+	 */
+	private static class Entry {
+		private final SolutionCollection solutions;
+
+		private Entry(SolutionCollection solutions) {
+			this.solutions = solutions;
+		}
+	}
+
+} // End of class ResultCache
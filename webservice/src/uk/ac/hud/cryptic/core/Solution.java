@@ -1,7 +1,6 @@
 package uk.ac.hud.cryptic.core;
 
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.List;
 
 import uk.ac.hud.cryptic.util.Confidence;
@@ -11,7 +10,7 @@ import uk.ac.hud.cryptic.util.WordUtils;
  * Represents a potential solution for a given clue.
  * 
  * @author Stuart Leader
- * @version 0.2
+ * @version 0.3
  */
 public class Solution implements Comparable<Solution> {
 
@@ -22,7 +21,7 @@ public class Solution implements Comparable<Solution> {
 	// The confidence score for this generated solution
 	private double confidence;
 	// A log of the steps involved to arrive at this solution
-	private List<String> trace;
+	private Trace trace;
 	// The algorithm which generated this solution
 	private String type;
 
@@ -50,6 +49,23 @@ public class Solution implements Comparable<Solution> {
 		this(solution, Confidence.INITIAL, type);
 	}
 
+	/**
+	 * Constructor where the solution string is passed in along with the steps
+	 * taken to arrive at it
+	 * 
+	 * @param solution
+	 *            - the potential solution to the corresponding clue which is
+	 *            represented by this class
+	 * @param type
+	 *            - the type of algorithm that generated this Solution
+	 * @param trace
+	 *            - the steps taken to arrive at this solution
+	 */
+	public Solution(String solution, String type, Trace trace) {
+		this(solution, type);
+		this.trace = trace;
+	}
+
 	/**
 	 * Constructor where the solution string is passed in and the confidence
 	 * 
@@ -62,7 +78,7 @@ public class Solution implements Comparable<Solution> {
 	 *            - the type of algorithm that generated this Solution
 	 */
 	public Solution(String solution, double confidence, String type) {
-		trace = new ArrayList<>();
+		trace = Trace.EMPTY;
 		// Standardise all potential solutions
 		this.solution = WordUtils.normaliseInput(solution, false);
 		// Default confidence rating
@@ -72,15 +88,31 @@ public class Solution implements Comparable<Solution> {
 	}
 
 	/**
-	 * Append an entry to the end of the trace's stack
+	 * Copy constructor. Traces can't be changed once created, so the copy can
+	 * add to its trace without affecting the original.
+	 * 
+	 * @param other
+	 *            - the solution to copy
+	 */
+	public Solution(Solution other) {
+		this(other.solution, other.confidence, other.type);
+		trace = other.trace;
+	}
+
+	/**
+	 * Append an entry to the end of the trace's stack. The message is only
+	 * created if the trace is asked for, so pass the values to go into the
+	 * message rather than formatting it here.
 	 * 
 	 * @param traceEntry
-	 *            - the item to append to the solution's trace stack
+	 *            - the item to append to the solution's trace stack, which is a
+	 *            template for <code>String.format()</code> if any arguments
+	 *            are given
+	 * @param args
+	 *            - the values to fill the template with
 	 */
-	public void addToTrace(String traceEntry) {
-		if (traceEntry != null && !traceEntry.isEmpty()) {
-			trace.add(traceEntry);
-		}
+	public void addToTrace(String traceEntry, Object... args) {
+		trace = trace.append(traceEntry, args);
 	}
 
 	/**
@@ -163,6 +195,16 @@ public class Solution implements Comparable<Solution> {
 	 * @return the trace list for this solution
 	 */
 	public List<String> getSolutionTrace() {
+		return trace.render();
+	}
+
+	/**
+	 * Get the steps followed to arrive at this solution, without creating
+	 * their messages
+	 * 
+	 * @return the trace for this solution
+	 */
+	public Trace getTrace() {
 		return trace;
 	}
 
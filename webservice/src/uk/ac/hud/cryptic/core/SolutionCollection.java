@@ -1,7 +1,16 @@
 package uk.ac.hud.cryptic.core;
 
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -12,13 +21,56 @@ import uk.ac.hud.cryptic.util.WordUtils;
  * Maintains a set (no duplicates) of potential solutions to a clue, which are
  * ordered by their associated confidence rating.
  * 
+ * The solutions are kept in a map keyed by their text without spaces or
+ * hyphens, so "top hat" and "top-hat" are the same solution. Looking up a
+ * solution, and merging one which is already present, doesn't need to check
+ * every other solution.
+ * 
  * @author Stuart Leader
- * @version 0.2
+ * @version 0.3
+ * @see ConcurrentSolutionCollection
  */
-public class SolutionCollection extends HashSet<Solution> {
+public class SolutionCollection extends AbstractSet<Solution> implements
+		Serializable {
 
 	private static final long serialVersionUID = -4860282004897560415L;
 
+	// The solutions, keyed by their text without spaces or hyphens
+	private final Map<String, Solution> solutions;
+
+	// Whether some solvers didn't finish, so solutions may be missing
+	private boolean partial;
+	// Whether the solutions were found by an earlier request for the clue
+	private boolean cached;
+
+	/**
+	 * Create an empty collection
+	 */
+	public SolutionCollection() {
+		this(new HashMap<String, Solution>());
+	}
+
+	/**
+	 * Create an empty collection, which keeps its solutions in the given map
+	 * 
+	 * @param solutions
+	 *            - an empty map to hold the solutions
+	 */
+	protected SolutionCollection(Map<String, Solution> solutions) {
+		this.solutions = solutions;
+	}
+
+	/**
+	 * Get the key a solution is kept under
+	 * 
+	 * @param solution
+	 *            - the solution text
+	 * @return the solution text without spaces or hyphens
+	 */
+	private static String getKey(String solution) {
+		return WordUtils.removeSpacesAndHyphens(solution);
+	}
+
 	/**
 	 * Determine if the <code>SolutionCollection</code> contains the given
 	 * solution string
@@ -29,20 +81,16 @@ public class SolutionCollection extends HashSet<Solution> {
 	 *         <code>false</code> otherwise
 	 */
 	public boolean contains(String solution) {
-		// Standardise the given solution
-		String otherSolution = WordUtils.removeSpacesAndHyphens(solution);
-
-		for (Solution s : this) {
-			// Standardise each solution of the collection
-			String thisSolution = WordUtils.removeSpacesAndHyphens(s
-					.getSolution());
+		return solutions.containsKey(getKey(solution));
+	}
 
-			// Check if they match!
-			if (thisSolution.equals(otherSolution)) {
-				return true;
-			}
-		}
-		return false;
+	/**
+	 * Determine if the collection contains an equivalent of the given solution
+	 */
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof Solution
+				&& contains(((Solution) o).getSolution());
 	}
 
 	public Solution getBestSolution() {
@@ -114,10 +162,7 @@ public class SolutionCollection extends HashSet<Solution> {
 
 	public void removeAllStrings(Collection<String> solutions) {
 		for (String solution : solutions) {
-			// Check if it is contained
-			if (contains(solution)) {
-				remove(new Solution(solution));
-			}
+			remove(new Solution(solution));
 		}
 	}
 
@@ -131,6 +176,46 @@ public class SolutionCollection extends HashSet<Solution> {
 		return new TreeSet<>(this);
 	}
 
+	/**
+	 * Get the best solutions, sorted by their confidence ratings. Only the
+	 * solutions being returned are sorted, so this is much quicker than
+	 * <code>sortSolutions()</code> when there are many more solutions than are
+	 * wanted.
+	 * 
+	 * @param limit
+	 *            - the maximum number of solutions to return, or 0 for all of
+	 *            them
+	 * @param minConfidence
+	 *            - the confidence score which solutions must reach
+	 * @return the best solutions, in the same order as
+	 *         <code>sortSolutions()</code>
+	 */
+	public List<Solution> getTopSolutions(int limit, double minConfidence) {
+		if (limit <= 0) {
+			limit = Integer.MAX_VALUE;
+		}
+		// The worst of the solutions kept so far is at the head, ready to be
+		// replaced by a better one
+		Comparator<Solution> worstFirst = Collections.reverseOrder();
+		PriorityQueue<Solution> best = new PriorityQueue<>(Math.min(limit,
+				Math.max(size(), 1)), worstFirst);
+		for (Solution s : this) {
+			if (s.getConfidence() < minConfidence) {
+				continue;
+			}
+			if (best.size() < limit) {
+				best.add(s);
+			} else if (worstFirst.compare(s, best.peek()) > 0) {
+				best.poll();
+				best.add(s);
+			}
+		}
+
+		List<Solution> top = new ArrayList<>(best);
+		Collections.sort(top);
+		return top;
+	}
+
 	/**
 	 * Get the Solution object which matches the passed String solution (if
 	 * present)
@@ -141,20 +226,44 @@ public class SolutionCollection extends HashSet<Solution> {
 	 *         present
 	 */
 	public Solution getSolution(String solution) {
-		// Standardise the given solution
-		String otherSolution = WordUtils.removeSpacesAndHyphens(solution);
+		return solutions.get(getKey(solution));
+	}
 
-		for (Solution s : this) {
-			// Standardise each solution of the collection
-			String thisSolution = WordUtils.removeSpacesAndHyphens(s
-					.getSolution());
+	/**
+	 * @return <code>true</code> if some of the solvers didn't finish in time,
+	 *         so there may be solutions missing from the collection
+	 */
+	public boolean isPartial() {
+		return partial;
+	}
 
-			// Check if they match!
-			if (thisSolution.equals(otherSolution)) {
-				return s;
-			}
-		}
-		return null;
+	/**
+	 * Mark whether the collection is missing the solutions of solvers which
+	 * didn't finish in time
+	 * 
+	 * @param partial
+	 *            - <code>true</code> if some solvers didn't finish
+	 */
+	public void setPartial(boolean partial) {
+		this.partial = partial;
+	}
+
+	/**
+	 * @return <code>true</code> if the solutions were taken from the result
+	 *         cache, rather than found by the solvers
+	 */
+	public boolean isCached() {
+		return cached;
+	}
+
+	/**
+	 * Mark whether the collection was taken from the result cache
+	 * 
+	 * @param cached
+	 *            - <code>true</code> if the solvers weren't run
+	 */
+	public void setCached(boolean cached) {
+		this.cached = cached;
 	}
 
 	/**
@@ -164,56 +273,42 @@ public class SolutionCollection extends HashSet<Solution> {
 	 */
 	@Override
 	public boolean add(Solution s) {
-		boolean added = false;
+		final String key = getKey(s.getSolution());
+		Solution duplicateSolution = solutions.get(key);
 
-		// The solution text
-		final String solutionText = s.getSolution();
+		if (duplicateSolution == null) {
+			// Solution not already contained in the set
+			solutions.put(key, s);
+			return true;
+		}
 
-		if (contains(s)) {
-			// Solution already present. Make adjustment.
-			Solution duplicateSolution = null;
+		// Don't accept the same solution from the same solver
+		if (s.getSolverType().equals(duplicateSolution.getSolverType())) {
+			return false;
+		}
 
-			// Have to iterate
-			for (Solution solution : this) {
-				if (solutionText.equals(solution.getSolution())) {
-					duplicateSolution = solution;
-					break;
-				}
-			}
+		// Solution with the greatest confidence
+		Solution bestSolution = s.getConfidence() > duplicateSolution
+				.getConfidence() ? s : duplicateSolution;
+		Solution worstSolution = bestSolution == s ? duplicateSolution : s;
 
-			// Don't accept the same solution from the same solver
-			if (!s.getSolverType().equals(duplicateSolution.getSolverType())) {
-
-				// Solution with the greatest confidence
-				Solution bestSolution = s.getConfidence() > duplicateSolution
-						.getConfidence() ? s : duplicateSolution;
-				Solution worstSolution = bestSolution == s ? duplicateSolution
-						: s;
-
-				// Increase confidence and add message
-				double confidence = Confidence.multiply(
-						bestSolution.getConfidence(),
-						Confidence.MULTI_SOLVER_MULTIPLIER);
-				bestSolution.setConfidence(confidence);
-				bestSolution
-						.addToTrace("Confidence rating increased as this solution has also been found by the \""
-								+ worstSolution.getSolverType() + "\" solver.");
-
-				// If the best solution isn't current in the collection, remove
-				// old and add this one
-				if (bestSolution == s) {
-					remove(duplicateSolution);
-					super.add(bestSolution);
-				}
+		// Increase confidence and add message
+		double confidence = Confidence.multiply(bestSolution.getConfidence(),
+				Confidence.MULTI_SOLVER_MULTIPLIER);
+		bestSolution.setConfidence(confidence);
+		bestSolution
+				.addToTrace(
+						"Confidence rating increased as this solution has also been found by the \"%s\" solver.",
+						worstSolution.getSolverType());
 
-				// Can return true to indicate solution has been added (kind of)
-				added = true;
-			}
-		} else {
-			// Solution not already contained in the set
-			added = super.add(s);
+		// If the best solution isn't current in the collection, replace the
+		// old one
+		if (bestSolution == s) {
+			solutions.put(key, s);
 		}
-		return added;
+
+		// Can return true to indicate solution has been added (kind of)
+		return true;
 	}
 
 	/**
@@ -227,14 +322,36 @@ public class SolutionCollection extends HashSet<Solution> {
 		boolean changed = false;
 		if (c != null && !c.isEmpty()) {
 			for (Solution s : c) {
-				boolean added = add(s);
-				if (!changed && added) {
+				if (add(s)) {
 					changed = true;
 				}
 			}
 		}
-		return false;
+		return changed;
+	}
+
+	/**
+	 * Remove the equivalent of the given solution, if present
+	 */
+	@Override
+	public boolean remove(Object o) {
+		return o instanceof Solution
+				&& solutions.remove(getKey(((Solution) o).getSolution())) != null;
+	}
+
+	@Override
+	public void clear() {
+		solutions.clear();
+	}
 
+	@Override
+	public Iterator<Solution> iterator() {
+		return solutions.values().iterator();
+	}
+
+	@Override
+	public int size() {
+		return solutions.size();
 	}
 
 } // End of class SolutionCollection
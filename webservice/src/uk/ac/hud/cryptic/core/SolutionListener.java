@@ -0,0 +1,26 @@
+package uk.ac.hud.cryptic.core;
+
+/**
+ * Receives the solutions of each solver as soon as that solver finishes,
+ * rather than waiting for every solver to finish. This allows the solutions
+ * of quick solvers to be shown while slower ones are still running.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public interface SolutionListener {
+
+	/**
+	 * Called once for each solver which finishes, in the order they finish.
+	 * Calls are made one at a time, on the thread which is solving the clue.
+	 * The solutions have not yet had their confidence adjusted by the
+	 * categoriser, which only happens once every solver has finished.
+	 *
+	 * @param solver
+	 *            - the name of the solver, e.g. "anagram"
+	 * @param solutions
+	 *            - the solutions found by the solver
+	 */
+	void solutionsFound(String solver, SolutionCollection solutions);
+
+} // End of interface SolutionListener
@@ -508,6 +508,34 @@ public class SolutionPattern {
 		return pattern;
 	}
 
+	/**
+	 * Determine if this pattern only narrows down another, that is it has the
+	 * same words and separators, and keeps all of the characters known by the
+	 * other pattern. Every solution matching this pattern will also match the
+	 * other. For example, "?a??e??" is a refinement of "?a?????".
+	 * 
+	 * @param other
+	 *            - the more general pattern
+	 * @return <code>true</code> if this pattern is a refinement of (or the same
+	 *         as) the other, <code>false</code> otherwise
+	 */
+	public boolean isRefinementOf(SolutionPattern other) {
+		final String general = other.pattern;
+		if (pattern.length() != general.length()) {
+			return false;
+		}
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			char g = general.charAt(i);
+			// An unknown character may become known, but not a separator
+			if (c != g
+					&& (g != UNKNOWN_CHARACTER || c == SPACE || c == HYPHEN)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Is the entire pattern unknown?
 	 * 
@@ -0,0 +1,454 @@
+package uk.ac.hud.cryptic.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.hud.cryptic.config.Settings;
+
+/**
+ * A single, bounded pool of worker threads which is shared by every solver of
+ * every clue. Previously a new thread pool was created for each clue (and for
+ * each anagram fodder), so the number of threads grew with the number of
+ * concurrent requests. Here, the number of workers, the number of queued
+ * tasks, the number of clues being solved at once and the number of tasks of
+ * any one solver type are all capped by the values in
+ * <code>cryptic.properties</code>. Work which cannot be admitted within the
+ * admission timeout is refused with a <code>RejectedExecutionException</code>
+ * rather than being left to queue up indefinitely.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class SolverExecutor {
+
+	// Singleton instance
+	private static SolverExecutor instance;
+
+	// The workers used to run the solvers
+	private final ThreadPoolExecutor pool;
+	// The threads which wait on the solvers of each clue, for callers which
+	// hand a whole clue over rather than waiting themselves
+	private final ThreadPoolExecutor requests;
+	// Limits the number of clues being solved at once
+	private final Semaphore clueAdmission;
+	// Limits the number of tasks of each solver type
+	private final ConcurrentMap<String, Semaphore> solverPermits = new ConcurrentHashMap<>();
+	// Tasks of each solver type which are currently queued or running
+	private final ConcurrentMap<String, AtomicInteger> outstanding = new ConcurrentHashMap<>();
+	// Default number of tasks of a single solver type
+	private final int solverConcurrency;
+	// Milliseconds to wait for a permit before giving up
+	private final long admissionTimeout;
+	// Maximum number of clues which can be solved at once
+	private final int maxConcurrentClues;
+
+	/**
+	 * Default constructor. Reads the limits from the application configuration.
+	 */
+	private SolverExecutor() {
+		this(getThreadSetting(), Settings.getInstance().getIntSetting(
+				"executor.queueCapacity", 512), Settings.getInstance()
+				.getIntSetting("executor.maxConcurrentClues", 16), Settings
+				.getInstance().getIntSetting("executor.solverConcurrency", 16),
+				Settings.getInstance().getLongSetting(
+						"executor.admissionTimeout", 5000));
+	}
+
+	/**
+	 * Constructor which allows the limits to be specified explicitly. This is
+	 * mainly useful for testing.
+	 *
+	 * @param threads
+	 *            - the number of worker threads
+	 * @param queueCapacity
+	 *            - the number of tasks which may wait for a worker
+	 * @param maxConcurrentClues
+	 *            - the number of clues which may be solved at once
+	 * @param solverConcurrency
+	 *            - the number of tasks of a single solver type which may be
+	 *            queued or running at once
+	 * @param admissionTimeout
+	 *            - milliseconds to wait to be admitted before being refused
+	 */
+	SolverExecutor(int threads, int queueCapacity, int maxConcurrentClues,
+			int solverConcurrency, long admissionTimeout) {
+		this.maxConcurrentClues = Math.max(1, maxConcurrentClues);
+		this.solverConcurrency = Math.max(1, solverConcurrency);
+		this.admissionTimeout = Math.max(0, admissionTimeout);
+		clueAdmission = new Semaphore(this.maxConcurrentClues, true);
+
+		final int workers = Math.max(1, threads);
+		pool = new ThreadPoolExecutor(workers, workers, 0L,
+				TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+						Math.max(1, queueCapacity)), new SolverThreadFactory(
+						"solver-"), new ThreadPoolExecutor.AbortPolicy());
+		// No more clues than this can be solved at once anyway
+		requests = new ThreadPoolExecutor(this.maxConcurrentClues,
+				this.maxConcurrentClues, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, queueCapacity)),
+				new SolverThreadFactory("request-"),
+				new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * Get the configured number of worker threads. A value of zero (or less)
+	 * means one thread per available processor.
+	 *
+	 * @return the number of worker threads to create
+	 */
+	private static int getThreadSetting() {
+		int threads = Settings.getInstance().getIntSetting("executor.threads",
+				0);
+		return threads > 0 ? threads : Runtime.getRuntime()
+				.availableProcessors();
+	}
+
+	/**
+	 * Get the singleton instance of the executor
+	 *
+	 * @return the shared solver executor
+	 */
+	public static synchronized SolverExecutor getInstance() {
+		if (instance == null) {
+			instance = new SolverExecutor();
+		}
+		return instance;
+	}
+
+	/**
+	 * Stop the shared executor, if it has been started. Any queued tasks are
+	 * discarded. This should be called when the application is shutting down.
+	 */
+	public static synchronized void shutdownInstance() {
+		if (instance != null) {
+			instance.shutdown();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Reserve a place for a clue to be solved. Each successful call must be
+	 * matched by a call to <code>release()</code>.
+	 *
+	 * @throws RejectedExecutionException
+	 *             if the maximum number of clues are already being solved and
+	 *             no place becomes free within the admission timeout
+	 */
+	public void admit() {
+		if (!acquire(clueAdmission)) {
+			throw new RejectedExecutionException(
+					"Too many clues are currently being solved.");
+		}
+	}
+
+	/**
+	 * Release a place reserved by <code>admit()</code>
+	 */
+	public void release() {
+		clueAdmission.release();
+	}
+
+	/**
+	 * Submit a solver task to be run by the shared workers
+	 *
+	 * @param name
+	 *            - the name of the solver, used to limit the number of tasks of
+	 *            the same type
+	 * @param task
+	 *            - the work to perform
+	 * @return a <code>Future</code> which will hold the result of the task
+	 * @throws RejectedExecutionException
+	 *             if the solver's limit or the queue is full
+	 */
+	public <T> Future<T> submit(final String name, Callable<T> task) {
+		return submit(name, task, null);
+	}
+
+	/**
+	 * Submit a solver task to be run by the shared workers, adding its
+	 * <code>Future</code> to a queue once the task completes or is cancelled.
+	 * Tasks sharing the queue can then be taken in the order they finish.
+	 *
+	 * @param name
+	 *            - the name of the solver, used to limit the number of tasks of
+	 *            the same type
+	 * @param task
+	 *            - the work to perform
+	 * @param completed
+	 *            - the queue to add the finished task to, or <code>null</code>
+	 * @return a <code>Future</code> which will hold the result of the task
+	 * @throws RejectedExecutionException
+	 *             if the solver's limit or the queue is full
+	 */
+	public <T> Future<T> submit(final String name, Callable<T> task,
+			final BlockingQueue<Future<T>> completed) {
+		final Semaphore permits = getSolverPermits(name);
+		if (!acquire(permits)) {
+			throw new RejectedExecutionException("Too many \"" + name
+					+ "\" tasks are outstanding.");
+		}
+		final AtomicInteger count = getOutstandingCounter(name);
+		count.incrementAndGet();
+
+		// Give back the permit when the task finishes, or is cancelled before
+		// it gets the chance to run (whichever happens first)
+		final AtomicBoolean released = new AtomicBoolean();
+		final Runnable release = new Runnable() {
+			@Override
+			public void run() {
+				if (released.compareAndSet(false, true)) {
+					count.decrementAndGet();
+					permits.release();
+				}
+			}
+		};
+		final Callable<T> work = task;
+		FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				try {
+					return work.call();
+				} finally {
+					release.run();
+				}
+			}
+		}) {
+			@Override
+			protected void done() {
+				release.run();
+				if (completed != null) {
+					completed.add(this);
+				}
+			}
+		};
+		try {
+			pool.execute(future);
+		} catch (RejectedExecutionException e) {
+			// Never going to run, so give back the permit
+			future.cancel(false);
+			throw e;
+		}
+		return future;
+	}
+
+	/**
+	 * Hand over the solving of a whole clue, such as a web request which
+	 * should not tie up the servlet container's thread while the solvers run.
+	 * These tasks wait on the solvers, so they are run by their own threads
+	 * rather than the solver workers, which could otherwise all end up
+	 * waiting with no worker left to run the solvers themselves.
+	 *
+	 * @param task
+	 *            - the work to perform, which will usually solve a clue
+	 * @return a <code>Future</code> which can be used to cancel the task
+	 * @throws RejectedExecutionException
+	 *             if too many clues are already waiting
+	 */
+	public Future<?> submitRequest(Runnable task) {
+		return requests.submit(task);
+	}
+
+	/**
+	 * Run a collection of tasks from within a task that is already running on
+	 * this executor (such as one anagram search per fodder). The calling thread
+	 * works through the tasks itself, taking back any which are still waiting
+	 * in the queue, so a worker can never block forever waiting on work that
+	 * has no free worker to run it. Other tasks are handed to idle workers
+	 * where possible.
+	 *
+	 * @param tasks
+	 *            - the tasks to run
+	 * @return the results of each task, in the order they were given
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting. Any
+	 *             outstanding tasks are cancelled.
+	 * @throws ExecutionException
+	 *             if any of the tasks threw an exception
+	 */
+	public <T> List<T> invokeNested(Collection<? extends Callable<T>> tasks)
+			throws InterruptedException, ExecutionException {
+		List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+		for (Callable<T> task : tasks) {
+			futures.add(new FutureTask<>(task));
+		}
+
+		try {
+			// Offer all but the first to the workers, the queue may be full
+			for (int i = 1; i < futures.size(); i++) {
+				try {
+					pool.execute(futures.get(i));
+				} catch (RejectedExecutionException e) {
+					// Will be run by this thread below
+				}
+			}
+
+			// Run whatever hasn't been picked up yet in this thread
+			for (FutureTask<T> future : futures) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedException();
+				}
+				pool.remove(future);
+				// No effect if already started or complete
+				future.run();
+			}
+
+			List<T> results = new ArrayList<>(futures.size());
+			for (FutureTask<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (InterruptedException | ExecutionException
+				| CancellationException e) {
+			for (FutureTask<T> future : futures) {
+				future.cancel(true);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Wait for a permit, for no longer than the admission timeout
+	 *
+	 * @param semaphore
+	 *            - the semaphore to acquire a permit from
+	 * @return <code>true</code> if a permit was obtained
+	 */
+	private boolean acquire(Semaphore semaphore) {
+		try {
+			return semaphore.tryAcquire(admissionTimeout,
+					TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Get (creating if necessary) the semaphore limiting a solver type. A
+	 * per-solver value can be configured with
+	 * <code>executor.solverConcurrency.&lt;name&gt;</code>.
+	 *
+	 * @param name
+	 *            - the name of the solver
+	 * @return the semaphore for the given solver
+	 */
+	private Semaphore getSolverPermits(String name) {
+		Semaphore permits = solverPermits.get(name);
+		if (permits == null) {
+			int limit = Settings.getInstance().getIntSetting(
+					"executor.solverConcurrency." + name, solverConcurrency);
+			permits = new Semaphore(Math.max(1, limit), true);
+			Semaphore existing = solverPermits.putIfAbsent(name, permits);
+			if (existing != null) {
+				permits = existing;
+			}
+		}
+		return permits;
+	}
+
+	/**
+	 * Get (creating if necessary) the outstanding task counter for a solver
+	 *
+	 * @param name
+	 *            - the name of the solver
+	 * @return the counter for the given solver
+	 */
+	private AtomicInteger getOutstandingCounter(String name) {
+		AtomicInteger count = outstanding.get(name);
+		if (count == null) {
+			count = new AtomicInteger();
+			AtomicInteger existing = outstanding.putIfAbsent(name, count);
+			if (existing != null) {
+				count = existing;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of tasks waiting for a worker
+	 */
+	public int getQueueDepth() {
+		return pool.getQueue().size();
+	}
+
+	/**
+	 * @return the approximate number of workers currently running a task
+	 */
+	public int getActiveCount() {
+		return pool.getActiveCount();
+	}
+
+	/**
+	 * @return the number of clues currently being solved
+	 */
+	public int getActiveClues() {
+		return maxConcurrentClues - clueAdmission.availablePermits();
+	}
+
+	/**
+	 * Get the number of tasks of a solver type which are queued or running
+	 *
+	 * @param name
+	 *            - the name of the solver
+	 * @return the number of outstanding tasks for the solver
+	 */
+	public int getOutstandingTasks(String name) {
+		AtomicInteger count = outstanding.get(name);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * Stop the workers, discarding anything left in the queue
+	 */
+	public void shutdown() {
+		List<Runnable> discarded = new ArrayList<>(requests.shutdownNow());
+		discarded.addAll(pool.shutdownNow());
+		for (Iterator<Runnable> it = discarded.iterator(); it.hasNext();) {
+			Runnable r = it.next();
+			if (r instanceof Future) {
+				((Future<?>) r).cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Creates named, daemon worker threads so that an idle pool never prevents
+	 * the JVM from exiting.
+	 */
+	private static class SolverThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+		// Start of each thread's name
+		private final String prefix;
+
+		private SolverThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, prefix + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+} // End of class SolverExecutor
@@ -0,0 +1,311 @@
+package uk.ac.hud.cryptic.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import uk.ac.hud.cryptic.config.Settings;
+import uk.ac.hud.cryptic.solver.Solver;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The solvers which are run for each clue, as listed in
+ * <code>solvers.properties</code>. Previously the properties file was read,
+ * and each solver's class and constructor looked up, for every clue. The
+ * registry does this once, keeping the constructor of each solver along with
+ * its name, expected cost and the resources it uses, so creating the solvers
+ * for a clue is just a case of building a list.
+ *
+ * The properties file is checked for changes at most once every
+ * "solvers.checkInterval" milliseconds, and is only read again if it has been
+ * modified since it was last loaded.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class SolverRegistry {
+
+	// Singleton instance
+	private static volatile SolverRegistry instance;
+	// Settings Instance
+	private static Settings settings = Settings.getInstance();
+
+	// The configured solvers, in the order they are listed. Replaced (never
+	// modified) when the properties file changes
+	private volatile List<SolverInfo> solvers;
+	// Modification time of the properties file when it was last loaded
+	private volatile long loadedModified;
+	// When the properties file should next be checked for changes
+	private volatile long nextCheck;
+	// Milliseconds between checks for changes (negative = never check)
+	private final long checkInterval;
+
+	/**
+	 * Default constructor. Loads the solvers straight away, so that any which
+	 * can't be loaded are reported when the application starts.
+	 */
+	private SolverRegistry() {
+		checkInterval = settings.getLongSetting("solvers.checkInterval", 5000);
+		reload();
+	}
+
+	/**
+	 * This method will return the current (and only) instance of the
+	 * SolverRegistry object.
+	 *
+	 * @return the solver registry
+	 */
+	public static SolverRegistry getInstance() {
+		// Only lock if the instance hasn't been created yet
+		if (instance == null) {
+			synchronized (SolverRegistry.class) {
+				if (instance == null) {
+					instance = new SolverRegistry();
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Get the solvers which are currently configured, reloading them first if
+	 * the properties file has changed
+	 *
+	 * @return the configured solvers, which can't be modified
+	 */
+	public List<SolverInfo> getSolvers() {
+		reloadIfModified();
+		return solvers;
+	}
+
+	/**
+	 * Create a new instance of every configured solver, ready to solve the
+	 * given clue
+	 *
+	 * @param clue
+	 *            - the clue which is to be solved
+	 * @return the solvers for the clue
+	 */
+	public Collection<Solver> createSolvers(Clue clue) {
+		List<SolverInfo> current = getSolvers();
+		Collection<Solver> created = new ArrayList<>(current.size());
+		for (SolverInfo info : current) {
+			try {
+				created.add(info.create(clue));
+			} catch (ReflectiveOperationException e) {
+				e.printStackTrace();
+			}
+		}
+		return created;
+	}
+
+	/**
+	 * Read the properties file again, if it's time for a check and it has been
+	 * modified since it was last loaded
+	 */
+	private void reloadIfModified() {
+		if (checkInterval < 0 || System.currentTimeMillis() < nextCheck) {
+			return;
+		}
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			if (now < nextCheck) {
+				// Another thread has just checked
+				return;
+			}
+			nextCheck = now + checkInterval;
+			if (settings.getPropertyLastModified() != loadedModified) {
+				reload();
+			}
+		}
+	}
+
+	/**
+	 * Read the solvers from the properties file, dropping any cached results
+	 * found by the previous solvers. If the file can't be read, the solvers
+	 * which are already loaded are kept.
+	 */
+	public synchronized void reload() {
+		long modified = settings.getPropertyLastModified();
+		InputStream is = settings.getPropertyStream();
+		if (is == null) {
+			System.err.println("Unable to find the solvers properties file.");
+			if (solvers == null) {
+				solvers = ImmutableList.of();
+			}
+			return;
+		}
+
+		// Try-with-resources. Readers are automatically closed after use
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(is))) {
+			solvers = parse(br);
+			loadedModified = modified;
+			// Solutions found by the previous solvers are now out of date
+			ResultCache.getInstance().invalidateAll();
+		} catch (IOException e) {
+			System.err.println("Exception reading the solvers properties file.");
+			if (solvers == null) {
+				solvers = ImmutableList.of();
+			}
+		}
+	}
+
+	/**
+	 * Read a list of solvers. Each line holds the class of a solver, which may
+	 * be followed by attributes such as "cost=3" and
+	 * "resources=dictionary,thesaurus", separated by spaces. Blank lines and
+	 * those starting with a '#' are ignored, as are solvers which can't be
+	 * loaded.
+	 *
+	 * @param br
+	 *            - the contents of a solvers properties file
+	 * @return the solvers, in the order they are listed
+	 * @throws IOException
+	 *             if the contents can't be read
+	 */
+	static List<SolverInfo> parse(BufferedReader br) throws IOException {
+		ImmutableList.Builder<SolverInfo> builder = ImmutableList.builder();
+		String line;
+		while ((line = br.readLine()) != null) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				// Ignore blank and commented lines
+				continue;
+			}
+			SolverInfo info = parseLine(line);
+			if (info != null) {
+				builder.add(info);
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Load the solver described by a single line of the properties file
+	 *
+	 * @param line
+	 *            - the class of the solver, followed by any attributes
+	 * @return the solver, or <code>null</code> if it can't be loaded
+	 */
+	private static SolverInfo parseLine(String line) {
+		String[] fields = line.split("\\s+");
+		int cost = 1;
+		Set<String> resources = ImmutableSet.of();
+
+		for (int i = 1; i < fields.length; i++) {
+			String[] attribute = fields[i].split("=", 2);
+			if (attribute.length == 2 && attribute[0].equals("cost")) {
+				try {
+					cost = Math.max(1, Integer.parseInt(attribute[1]));
+				} catch (NumberFormatException e) {
+					System.err.println("Invalid cost for solver \"" + fields[0]
+							+ "\".");
+				}
+			} else if (attribute.length == 2
+					&& attribute[0].equals("resources")) {
+				resources = ImmutableSet.copyOf(Arrays.asList(attribute[1]
+						.split(",")));
+			} else {
+				System.err.println("Unknown attribute \"" + fields[i]
+						+ "\" for solver \"" + fields[0] + "\".");
+			}
+		}
+
+		try {
+			// Load the class and look up its constructors once only
+			Class<? extends Solver> cls = Class.forName(fields[0]).asSubclass(
+					Solver.class);
+			Constructor<? extends Solver> constructor = cls
+					.getDeclaredConstructor(Clue.class);
+			// A solver's name is given by its toString method
+			String name = cls.getDeclaredConstructor().newInstance()
+					.toString();
+			return new SolverInfo(name, cost, resources, constructor);
+		} catch (ReflectiveOperationException | ClassCastException
+				| SecurityException | LinkageError e) {
+			// LinkageError covers a solver which fails to initialise
+			System.err.println("Unable to load solver \"" + fields[0] + "\".");
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * A solver which has been loaded, along with what's known about it
+	 */
+	public static class SolverInfo {
+		// The name of the solver, e.g. "anagram"
+		private final String name;
+		// How expensive the solver is relative to the others (at least 1)
+		private final int cost;
+		// The resources used by the solver, e.g. "dictionary"
+		private final Set<String> resources;
+		// Creates an instance of the solver for a clue
+		private final Constructor<? extends Solver> constructor;
+
+		private SolverInfo(String name, int cost, Set<String> resources,
+				Constructor<? extends Solver> constructor) {
+			this.name = name;
+			this.cost = cost;
+			this.resources = resources;
+			this.constructor = constructor;
+		}
+
+		/**
+		 * @return the name of the solver, e.g. "anagram"
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return how expensive the solver is to run, relative to the others
+		 *         (1 = cheap)
+		 */
+		public int getCost() {
+			return cost;
+		}
+
+		/**
+		 * @return the resources used by the solver, e.g. "dictionary"
+		 */
+		public Set<String> getResources() {
+			return resources;
+		}
+
+		/**
+		 * @return the class of the solver
+		 */
+		public Class<? extends Solver> getSolverClass() {
+			return constructor.getDeclaringClass();
+		}
+
+		/**
+		 * Create an instance of the solver, ready to solve a clue
+		 *
+		 * @param clue
+		 *            - the clue which is to be solved
+		 * @return the new solver
+		 * @throws ReflectiveOperationException
+		 *             if the solver's constructor fails
+		 */
+		public Solver create(Clue clue) throws ReflectiveOperationException {
+			return constructor.newInstance(clue);
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+} // End of class SolverRegistry
@@ -0,0 +1,307 @@
+package uk.ac.hud.cryptic.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.hud.cryptic.config.Settings;
+import uk.ac.hud.cryptic.core.SolverRegistry.SolverInfo;
+import uk.ac.hud.cryptic.nlp.NLPCategoriser;
+import uk.ac.hud.cryptic.resource.Categoriser;
+
+/**
+ * Decides which solvers to run for a clue, and in what order. There are two
+ * sources of evidence of the type of clue it is: indicator words in the clue
+ * (such as "reportedly" for a homophone), and the probabilities the NLP
+ * categoriser gives each type. Rather than running every solver in the order
+ * they are listed, the most likely solvers are run first and given the whole
+ * time budget, while the rest are given a share of it.
+ *
+ * From the indicator words, each solver is scored as follows:
+ * <ul>
+ * <li>1 if an indicator for its type is found in the clue</li>
+ * <li>0.5 if there is no evidence either way, i.e. no indicators were found
+ * at all, or there are no known indicators for its type</li>
+ * <li>0 if indicators for other types were found, but none for its own</li>
+ * </ul>
+ * The categoriser's probabilities are scaled so that its most probable type
+ * scores 1, with types it doesn't know about scoring 0.5. The two scores are
+ * combined, with "scheduler.nlpWeight" of the weight given to the
+ * categoriser.
+ *
+ * An expensive solver (one whose cost is at least "scheduler.expensiveCost")
+ * isn't run at all if its score is more than "scheduler.recallMargin" below
+ * the best score. The evidence is only a hint, so the margin trades the time
+ * saved against the chance of missing the solution; a margin of 1 or more
+ * (the default) runs every solver.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class SolverScheduler {
+
+	// The scores given to each solver
+	static final double SCORE_INDICATED = 1;
+	static final double SCORE_UNKNOWN = 0.5;
+	static final double SCORE_CONTRADICTED = 0;
+
+	// Singleton instance
+	private static volatile SolverScheduler instance;
+	// Settings Instance
+	private static Settings settings = Settings.getInstance();
+
+	// The weight given to the categoriser's probabilities (0 - 1)
+	private final double nlpWeight;
+	// How far below the best score an expensive solver may be and still run
+	private final double recallMargin;
+	// The cost at which a solver counts as expensive
+	private final int expensiveCost;
+	// The share of the time budget given to solvers without the best score
+	private final double unlikelyBudget;
+
+	/**
+	 * Default constructor. Reads the margins from the application settings.
+	 */
+	private SolverScheduler() {
+		this(settings.getDoubleSetting("scheduler.recallMargin", 1), settings
+				.getIntSetting("scheduler.expensiveCost", 3), settings
+				.getDoubleSetting("scheduler.unlikelyBudget", 0.5), settings
+				.getDoubleSetting("scheduler.nlpWeight", 0.5));
+	}
+
+	/**
+	 * Create a scheduler with the given margins
+	 *
+	 * @param recallMargin
+	 *            - how far below the best score an expensive solver may be and
+	 *            still run
+	 * @param expensiveCost
+	 *            - the cost at which a solver counts as expensive
+	 * @param unlikelyBudget
+	 *            - the share of the time budget (0 - 1) given to solvers
+	 *            without the best score
+	 * @param nlpWeight
+	 *            - the weight (0 - 1) given to the categoriser's probabilities
+	 *            over the indicator words
+	 */
+	SolverScheduler(double recallMargin, int expensiveCost,
+			double unlikelyBudget, double nlpWeight) {
+		this.recallMargin = recallMargin;
+		this.expensiveCost = expensiveCost;
+		this.unlikelyBudget = Math.max(0, Math.min(1, unlikelyBudget));
+		this.nlpWeight = Math.max(0, Math.min(1, nlpWeight));
+	}
+
+	/**
+	 * This method will return the current (and only) instance of the
+	 * SolverScheduler object.
+	 *
+	 * @return the solver scheduler
+	 */
+	public static SolverScheduler getInstance() {
+		// Only lock if the instance hasn't been created yet
+		if (instance == null) {
+			synchronized (SolverScheduler.class) {
+				if (instance == null) {
+					instance = new SolverScheduler();
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Choose which of the solvers to run for a clue
+	 *
+	 * @param clue
+	 *            - the clue which is to be solved
+	 * @param solvers
+	 *            - the configured solvers
+	 * @return the solvers to run, most likely first
+	 */
+	public List<Scheduled> schedule(Clue clue, Collection<SolverInfo> solvers) {
+		return schedule(Categoriser.getInstance().getMatchingClueTypes(clue),
+				getProbabilities(clue), solvers);
+	}
+
+	/**
+	 * Choose which of the solvers to run, given the clue types which have been
+	 * indicated and the probability of each type
+	 *
+	 * @param indicated
+	 *            - the types of clue with indicator words in the clue
+	 * @param probabilities
+	 *            - the probability of each clue type, keyed by the (lower
+	 *            case) name of the type. May be empty
+	 * @param solvers
+	 *            - the configured solvers
+	 * @return the solvers to run, most likely first
+	 */
+	List<Scheduled> schedule(Collection<String> indicated,
+			Map<String, Double> probabilities, Collection<SolverInfo> solvers) {
+		Categoriser categoriser = Categoriser.getInstance();
+		// The categoriser's scores are relative to its most probable type
+		double mostProbable = 0;
+		for (double p : probabilities.values()) {
+			mostProbable = Math.max(mostProbable, p);
+		}
+
+		List<Scheduled> scored = new ArrayList<>(solvers.size());
+		double best = SCORE_CONTRADICTED;
+		for (SolverInfo info : solvers) {
+			double score;
+			if (indicated.contains(info.getName())) {
+				score = SCORE_INDICATED;
+			} else if (indicated.isEmpty()
+					|| categoriser.getIndicators(info.getName()) == null) {
+				score = SCORE_UNKNOWN;
+			} else {
+				score = SCORE_CONTRADICTED;
+			}
+
+			if (mostProbable > 0) {
+				Double p = getProbability(probabilities, info.getName());
+				double nlpScore = p == null ? SCORE_UNKNOWN : p / mostProbable;
+				score = (1 - nlpWeight) * score + nlpWeight * nlpScore;
+			}
+			best = Math.max(best, score);
+			scored.add(new Scheduled(info, score));
+		}
+
+		List<Scheduled> scheduled = new ArrayList<>(scored.size());
+		for (Scheduled s : scored) {
+			if (s.info.getCost() >= expensiveCost
+					&& s.score < best - recallMargin) {
+				// Too costly to run when the evidence is against it
+				continue;
+			}
+			s.likely = s.score >= best;
+			scheduled.add(s);
+		}
+
+		// The most likely first, then the cheapest. The sort is stable, so
+		// the listed order is kept otherwise
+		Collections.sort(scheduled, new Comparator<Scheduled>() {
+			@Override
+			public int compare(Scheduled a, Scheduled b) {
+				int byScore = Double.compare(b.score, a.score);
+				if (byScore != 0) {
+					return byScore;
+				}
+				return Integer.compare(a.info.getCost(), b.info.getCost());
+			}
+		});
+		return scheduled;
+	}
+
+	/**
+	 * Get the probability the categoriser gives each type of clue
+	 *
+	 * @param clue
+	 *            - the clue to categorise
+	 * @return the probability of each clue type, keyed by the lower case name
+	 *         of the type, or nothing if the categoriser isn't available
+	 */
+	private Map<String, Double> getProbabilities(Clue clue) {
+		Map<String, Double> probabilities = new HashMap<>();
+		if (nlpWeight == 0) {
+			return probabilities;
+		}
+		try {
+			for (Map.Entry<String, Double> e : NLPCategoriser.getInstance()
+					.categorise(clue.getClueNoPunctuation(false)).entrySet()) {
+				probabilities.put(e.getKey().toLowerCase(), e.getValue());
+			}
+		} catch (RuntimeException e) {
+			// Without the model, the indicator words are the only evidence
+			System.err.println("Unable to categorise the clue.");
+		}
+		return probabilities;
+	}
+
+	/**
+	 * Look up the probability of a solver's type of clue. The categoriser
+	 * only knows some types by their first word (e.g. "double" for "double
+	 * definition").
+	 *
+	 * @param probabilities
+	 *            - the probability of each clue type
+	 * @param name
+	 *            - the name of the solver
+	 * @return the probability, or <code>null</code> if the type isn't known
+	 */
+	private static Double getProbability(Map<String, Double> probabilities,
+			String name) {
+		Double p = probabilities.get(name);
+		int space = name.indexOf(' ');
+		if (p == null && space > 0) {
+			p = probabilities.get(name.substring(0, space));
+		}
+		return p;
+	}
+
+	/**
+	 * Get the time a solver may take
+	 *
+	 * @param scheduled
+	 *            - the solver
+	 * @param timeBudget
+	 *            - milliseconds all of the solvers may take, or 0 for no limit
+	 * @return milliseconds the solver may take, or 0 for no limit
+	 */
+	public long getTimeBudget(Scheduled scheduled, long timeBudget) {
+		if (scheduled.likely || timeBudget <= 0) {
+			return timeBudget;
+		}
+		// Never 0, as that would mean no limit
+		return Math.max(1, (long) (timeBudget * unlikelyBudget));
+	}
+
+	/**
+	 * A solver which has been chosen to run, along with how likely it is to
+	 * find the solution
+	 */
+	public static class Scheduled {
+		private final SolverInfo info;
+		private final double score;
+		// Whether the solver has the best score of those scheduled
+		private boolean likely;
+
+		private Scheduled(SolverInfo info, double score) {
+			this.info = info;
+			this.score = score;
+		}
+
+		/**
+		 * @return the solver
+		 */
+		public SolverInfo getSolver() {
+			return info;
+		}
+
+		/**
+		 * @return how likely the solver is to find the solution (0 - 1)
+		 */
+		public double getScore() {
+			return score;
+		}
+
+		/**
+		 * @return <code>true</code> if no solver is more likely to find the
+		 *         solution than this one
+		 */
+		public boolean isLikely() {
+			return likely;
+		}
+
+		@Override
+		public String toString() {
+			return info.getName();
+		}
+	}
+
+} // End of class SolverScheduler
@@ -0,0 +1,120 @@
+package uk.ac.hud.cryptic.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The steps followed to arrive at a solution. Most of the solutions a solver
+ * generates are thrown away, having not matched the pattern or not been a
+ * real word, so the messages aren't turned into text until they're asked for.
+ * Each step is kept as a message template along with its arguments, and
+ * points back to the steps before it.
+ *
+ * A trace can't be changed once it has been created. Adding a step creates a
+ * new trace which shares all of the earlier steps, so the recursive searches
+ * can extend the trace at each level without copying it.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public final class Trace {
+
+	// A trace with no steps
+	public static final Trace EMPTY = new Trace(null, null, null);
+
+	// The steps before this one
+	private final Trace previous;
+	// The message template of this step, as used by String.format()
+	private final String format;
+	// The values to fill the template with
+	private final Object[] args;
+	// The number of steps, including this one
+	private final int size;
+
+	/**
+	 * Create a trace from the previous steps and a new step
+	 *
+	 * @param previous
+	 *            - the steps before this one
+	 * @param format
+	 *            - the message template of this step
+	 * @param args
+	 *            - the values to fill the template with
+	 */
+	private Trace(Trace previous, String format, Object[] args) {
+		this.previous = previous;
+		this.format = format;
+		this.args = args;
+		size = previous == null ? 0 : previous.size + 1;
+	}
+
+	/**
+	 * Add a step to the end of the trace. The message isn't created until the
+	 * trace is rendered.
+	 *
+	 * @param format
+	 *            - the message template, such as "\"%s\" is a synonym of
+	 *            \"%s\"." If there are no arguments, this is the message
+	 *            itself
+	 * @param args
+	 *            - the values to fill the template with
+	 * @return a trace which is this one with the step added
+	 */
+	public Trace append(String format, Object... args) {
+		if (format == null || format.isEmpty()) {
+			return this;
+		}
+		return new Trace(this, format, args);
+	}
+
+	/**
+	 * @return <code>true</code> if the trace has no steps
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of steps in the trace
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Create the message for each step of the trace
+	 *
+	 * @return the messages, in the order the steps were added
+	 */
+	public List<String> render() {
+		if (isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<String> messages = new ArrayList<>(size);
+		for (Trace step : getSteps()) {
+			messages.add(step.args == null || step.args.length == 0 ? step.format
+					: String.format(step.format, step.args));
+		}
+		return messages;
+	}
+
+	/**
+	 * @return each step of the trace, from the first to this one
+	 */
+	private Trace[] getSteps() {
+		Trace[] steps = new Trace[size];
+		Trace step = this;
+		for (int i = size - 1; i >= 0; i--) {
+			steps[i] = step;
+			step = step.previous;
+		}
+		return steps;
+	}
+
+	@Override
+	public String toString() {
+		return render().toString();
+	}
+
+} // End of class Trace
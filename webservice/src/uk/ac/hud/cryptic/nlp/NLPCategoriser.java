@@ -11,9 +11,17 @@ import uk.ac.hud.cryptic.config.Settings;
 
 public class NLPCategoriser {
 
-	private static NLPCategoriser instance;
+	private static volatile NLPCategoriser instance;
 	private final Settings settings = Settings.getInstance();
-	private DocumentCategorizerME categoriser;
+	// The pre-trained model, which can be shared between threads
+	private DoccatModel model;
+	// A categoriser isn't thread safe, so each thread has its own
+	private final ThreadLocal<DocumentCategorizerME> categoriser = new ThreadLocal<DocumentCategorizerME>() {
+		@Override
+		protected DocumentCategorizerME initialValue() {
+			return new DocumentCategorizerME(model);
+		}
+	};
 
 	/**
 	 * Initialise the parser by loading in the pre-trained categoriser model
@@ -21,8 +29,7 @@ public class NLPCategoriser {
 	private NLPCategoriser() {
 		try {
 			InputStream is = settings.getCategoriserModelStream();
-			DoccatModel m = new DoccatModel(is);
-			categoriser = new DocumentCategorizerME(m);
+			model = new DoccatModel(is);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -37,7 +44,7 @@ public class NLPCategoriser {
 	 * @return A map of the probabilities in the format <Anagram, 0.986>
 	 */
 	public Map<String, Double> categorise(String clue) {
-
+		DocumentCategorizerME categoriser = this.categoriser.get();
 		double[] outcomes = categoriser.categorize(clue);
 
 		// Print out the best category
@@ -63,6 +70,7 @@ public class NLPCategoriser {
 	 * @return the best fitting category
 	 */
 	public String getBestCategory(String clue) {
+		DocumentCategorizerME categoriser = this.categoriser.get();
 		double[] outcomes = categoriser.categorize(clue);
 		return categoriser.getBestCategory(outcomes);
 	}
@@ -74,8 +82,13 @@ public class NLPCategoriser {
 	 * @return the NLP categoriser
 	 */
 	public static NLPCategoriser getInstance() {
+		// Only lock if the instance hasn't been created yet
 		if (instance == null) {
-			instance = new NLPCategoriser();
+			synchronized (NLPCategoriser.class) {
+				if (instance == null) {
+					instance = new NLPCategoriser();
+				}
+			}
 		}
 		return instance;
 	}
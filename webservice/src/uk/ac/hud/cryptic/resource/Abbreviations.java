@@ -17,6 +17,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import uk.ac.hud.cryptic.config.Settings;
+import uk.ac.hud.cryptic.util.Util;
 import uk.ac.hud.cryptic.util.WordUtils;
 
 /**
@@ -27,7 +28,7 @@ import uk.ac.hud.cryptic.util.WordUtils;
  */
 public class Abbreviations {
 	// Thesaurus Instance
-	private static Abbreviations instance;
+	private static volatile Abbreviations instance;
 	// Settings Instance
 	private static Settings settings = Settings.getInstance();
 	// Actual Abbreviations data structure
@@ -80,6 +81,9 @@ public class Abbreviations {
 			abbreviations.put(WordUtils.normaliseInput(word, false),
 					wordAbbreviations);
 		}
+
+		// Never modified from now on, so can be safely shared between threads
+		abbreviations = Util.toImmutableSetMap(abbreviations);
 	}
 
 	/**
@@ -89,8 +93,13 @@ public class Abbreviations {
 	 * @return the abbreviations
 	 */
 	public static Abbreviations getInstance() {
+		// Only lock if the instance hasn't been created yet
 		if (instance == null) {
-			instance = new Abbreviations();
+			synchronized (Abbreviations.class) {
+				if (instance == null) {
+					instance = new Abbreviations();
+				}
+			}
 		}
 		return instance;
 	}
@@ -102,9 +111,11 @@ public class Abbreviations {
 	 *            - the single word to find the abbreviations for
 	 * @return a set of words which are abbreviations of the given word
 	 */
-	public synchronized Set<String> getAbbreviationsForWord(String word) {
-		// Return empty set if no abbreviations, rather than null
-		return abbreviations.containsKey(word) ? abbreviations.get(word)
+	public Set<String> getAbbreviationsForWord(String word) {
+		// Return empty set if no abbreviations, rather than null. A copy is
+		// returned as the caller is free to modify it
+		Set<String> wordAbbreviations = abbreviations.get(word);
+		return wordAbbreviations != null ? new HashSet<>(wordAbbreviations)
 				: new HashSet<String>();
 	}
 
@@ -122,7 +133,7 @@ public class Abbreviations {
 	 *            - the clue to look for abbreviations
 	 * @return a LinkedHashMap of all the abbreviations that have been found
 	 */
-	public synchronized Map<String, Set<String>> getAbbreviationsForClue(
+	public Map<String, Set<String>> getAbbreviationsForClue(
 			String clue) {
 		// This will be returned and will contain any found abbreviations
 		LinkedHashMap<String, Set<String>> abbrMap = new LinkedHashMap<>();
@@ -150,7 +161,9 @@ public class Abbreviations {
 					String clueWords = composeClueSubstring(clueList, i, j);
 					// If this String has registered abbreviations, note them!
 					if (abbreviations.containsKey(clueWords)) {
-						abbrMap.put(clueWords, abbreviations.get(clueWords));
+						// A copy, as the caller is free to modify it
+						abbrMap.put(clueWords,
+								new HashSet<>(abbreviations.get(clueWords)));
 						// Only look for the abbreviations of remaining clue
 						// words
 						nextUnfoundIndex = j + 1;
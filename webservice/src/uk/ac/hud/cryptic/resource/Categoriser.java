@@ -9,6 +9,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import uk.ac.hud.cryptic.config.Settings;
@@ -17,16 +18,17 @@ import uk.ac.hud.cryptic.core.Clue;
 import uk.ac.hud.cryptic.core.Solution;
 import uk.ac.hud.cryptic.core.SolutionCollection;
 import uk.ac.hud.cryptic.util.Confidence;
+import uk.ac.hud.cryptic.util.Util;
 import uk.ac.hud.cryptic.util.WordUtils;
 
 public class Categoriser {
 
 	// Dictionary Instance
-	private static Categoriser instance;
+	private static volatile Categoriser instance;
 	// Settings Instance
 	private static Settings settings = Settings.getInstance();
 	// Data structure containing indicator words
-	private Map<String, Collection<String>> indicators;
+	private Map<String, List<String>> indicators;
 
 	/**
 	 * Default Constructor
@@ -58,7 +60,7 @@ public class Categoriser {
 					String solverType = settings.getFileName(file.getName(),
 							"txt").toLowerCase();
 					// This will hold the indicators
-					Collection<String> words = new ArrayList<>();
+					List<String> words = new ArrayList<>();
 
 					try (BufferedReader br = new BufferedReader(new FileReader(
 							file))) {
@@ -79,6 +81,9 @@ public class Categoriser {
 				e.printStackTrace();
 			}
 		}
+
+		// Never modified from now on, so can be safely shared between threads
+		indicators = Util.toImmutableListMap(indicators);
 	}
 
 	/**
@@ -88,8 +93,13 @@ public class Categoriser {
 	 * @return the categoriser
 	 */
 	public static Categoriser getInstance() {
+		// Only lock if the instance hasn't been created yet
 		if (instance == null) {
-			instance = new Categoriser();
+			synchronized (Categoriser.class) {
+				if (instance == null) {
+					instance = new Categoriser();
+				}
+			}
 		}
 		return instance;
 	}
@@ -111,8 +121,9 @@ public class Categoriser {
 					double confidence = Confidence.multiply(s.getConfidence(),
 							Confidence.CATEGORY_MULTIPLIER);
 					s.setConfidence(confidence);
-					s.addToTrace("Confidence rating increased as the clue contains indicator word(s) suggesting the solution is of type \""
-							+ clueType + "\".");
+					s.addToTrace(
+							"Confidence rating increased as the clue contains indicator word(s) suggesting the solution is of type \"%s\".",
+							clueType);
 				}
 			}
 		}
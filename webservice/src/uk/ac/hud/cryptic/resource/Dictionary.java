@@ -5,40 +5,56 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
 import uk.ac.hud.cryptic.config.Settings;
+import uk.ac.hud.cryptic.core.ResultCache;
 import uk.ac.hud.cryptic.core.Solution;
 import uk.ac.hud.cryptic.core.SolutionPattern;
 import uk.ac.hud.cryptic.util.Cache;
 import uk.ac.hud.cryptic.util.WordUtils;
 
-import com.googlecode.concurrenttrees.radix.ConcurrentRadixTree;
-import com.googlecode.concurrenttrees.radix.RadixTree;
-import com.googlecode.concurrenttrees.radix.node.concrete.DefaultCharArrayNodeFactory;
-import com.googlecode.concurrenttrees.radix.node.concrete.voidvalue.VoidValue;
-
 /**
  * This class provides a wrapper around the dictionary words file found within
  * Linux systems.
  * 
+ * The words are held once only, in a <code>WordGraph</code>, which answers
+ * look-ups of whole words, prefixes, patterns and anagrams alike. Only the
+ * results of recent look-ups, and the handful of words of up to three letters,
+ * are held as strings, in the caches.
+ * 
  * @author Luke Hackett, Stuart Leader
- * @version 0.1
+ * @version 0.2
  */
 public class Dictionary {
 	// Dictionary Instance
-	private static Dictionary instance;
+	private static volatile Dictionary instance;
 	// Settings Instance
 	private static Settings settings = Settings.getInstance();
-
-	// Actual dictionary data structure
+	// Name of the snapshot
+	private static final String SNAPSHOT = "dictionary";
+	// Incremented whenever the layout of the snapshot changes
+	private static final int SNAPSHOT_FORMAT = 2;
+	// The assets the dictionary is loaded from
+	static final String[] SOURCES = { Settings.DICTIONARY,
+			Settings.DICTIONARY_EXCLUSIONS, Settings.CUSTOM_DICTIONARY };
+
+	// The words while they're being read from the text files
 	private Collection<String> dictionary;
-	private RadixTree<VoidValue> prefixDictionary;
+	// Actual dictionary data structure
+	private WordGraph words;
 
 	// Cache to speed up common requests
 	private DictionaryCache cache;
+	// Cache of matches for full solution patterns (kept apart from the single
+	// word patterns, as "????" means something different to each)
+	private Cache<String, Collection<String>> solutionCache;
+	// Cache of anagrams, keyed by the characters they're made of in order
+	private Cache<String, Collection<String>> anagramCache;
 
 	/**
 	 * Default Constructor
@@ -49,31 +65,59 @@ public class Dictionary {
 		// Initialise the cache
 		cache = new DictionaryCache();
 		cache.prePopulate();
+		solutionCache = new Cache<String, Collection<String>>(
+				settings.getLongSetting("cache.dictionary.maxWeight", 2000000),
+				Cache.COLLECTION_WEIGHER, settings.getLongSetting(
+						"cache.dictionary.expireAfterWrite", 0));
+		anagramCache = new Cache<String, Collection<String>>(
+				settings.getLongSetting("cache.dictionary.maxWeight", 2000000),
+				Cache.COLLECTION_WEIGHER, settings.getLongSetting(
+						"cache.dictionary.expireAfterWrite", 0));
+		// Solutions found with any earlier dictionary are now out of date
+		ResultCache.getInstance().invalidateAll();
 	}
 
 	/**
-	 * Load the dictionary into a HashSet to allow for much faster access
+	 * Load the dictionary into a <code>WordGraph</code> to allow for much
+	 * faster access. The snapshot is used if it is up to date, otherwise the
+	 * text files are read and a new snapshot is saved.
 	 */
 	private void populateDictionaryFromFile() {
-		InputStream[] is = { settings.getDictionaryStream() };
+		Snapshot snapshot = Snapshot.load(SNAPSHOT, SNAPSHOT_FORMAT,
+				WordGraph.ARRAY_COUNT, SOURCES);
+		if (snapshot != null) {
+			// The snapshot contains the graph only, not the words themselves
+			words = WordGraph.fromSnapshot(snapshot, 0);
+		} else {
+			// Instantiate the dictionary object
+			dictionary = new HashSet<>();
+
+			InputStream[] is = { settings.getDictionaryStream() };
+
+			// Read specified dictionary to internal data structure
+			for (InputStream element : is) {
+				readFile(element, true);
+			}
 
-		// Instantiate the dictionary object
-		dictionary = new HashSet<>();
-		prefixDictionary = new ConcurrentRadixTree<>(
-				new DefaultCharArrayNodeFactory());
+			// Remove specified exclusions
+			InputStream exclusions = settings.getDictionaryExclusionsStream();
+			readFile(exclusions, false);
 
-		// Read specified dictionary to internal data structure
-		for (InputStream element : is) {
-			readFile(element, true);
-		}
+			// Now add custom dictionary (takes precedence over exclusions)
+			InputStream customWords = settings.getCustomDictionaryStream();
+			readFile(customWords, true);
 
-		// Remove specified exclusions
-		InputStream exclusions = settings.getDictionaryExclusionsStream();
-		readFile(exclusions, false);
+			// The graph is built from the words in order
+			String[] sortedWords = dictionary.toArray(new String[dictionary
+					.size()]);
+			Arrays.sort(sortedWords);
+			words = WordGraph.build(sortedWords);
+			dictionary = null;
 
-		// Now add custom dictionary (takes precedence over exclusions)
-		InputStream customWords = settings.getCustomDictionaryStream();
-		readFile(customWords, true);
+			// Save the result to speed up the next load
+			Snapshot.save(SNAPSHOT, new Snapshot(SNAPSHOT_FORMAT,
+					new String[0], words.toArrays()));
+		}
 	}
 
 	/**
@@ -98,10 +142,8 @@ public class Dictionary {
 				String word = line.toLowerCase().trim();
 				if (add) {
 					dictionary.add(word);
-					prefixDictionary.put(word, VoidValue.SINGLETON);
 				} else {
 					dictionary.remove(word);
-					prefixDictionary.remove(word);
 				}
 			}
 
@@ -175,6 +217,28 @@ public class Dictionary {
 		prefixes.removeAll(toRemove);
 	}
 
+	/**
+	 * Remove any prefixes from the given collection which can't be the
+	 * beginning of a solution fitting the pattern, because they begin no
+	 * dictionary word (or series of words) of the right lengths.
+	 * 
+	 * @param prefixes
+	 *            - the collection of prefixes to verify against the dictionary
+	 * @param pattern
+	 *            - the pattern of the solution
+	 */
+	public void dictionaryPrefixFilter(Set<Solution> prefixes,
+			SolutionPattern pattern) {
+		Collection<Solution> toRemove = new ArrayList<>();
+		for (Solution p : prefixes) {
+			String prefix = WordUtils.removeSpacesAndHyphens(p.getSolution());
+			if (!prefixMatch(prefix, pattern)) {
+				toRemove.add(p);
+			}
+		}
+		prefixes.removeAll(toRemove);
+	}
+
 	/**
 	 * Get all word matches for a given solution pattern. This means words of
 	 * the correct length, with the correct characters where these have been
@@ -185,22 +249,17 @@ public class Dictionary {
 	 * @return a list of words from the dictionary which match against the
 	 *         pattern provided
 	 */
-	public synchronized Collection<String> getMatches(SolutionPattern pattern) {
+	public Collection<String> getMatches(SolutionPattern pattern) {
 		final String patternString = pattern.toString();
 		// Check the cache first for faster retrieval
-		if (cache.containsKey(patternString)) {
-			return cache.get(patternString);
+		Collection<String> matches = solutionCache.get(patternString);
+		if (matches != null) {
+			return matches;
 		}
 
-		Collection<String> matches = new HashSet<>();
-		// Go through each word in the dictionary
-		for (String word : dictionary) {
-			// Return it if it matches the pattern
-			if (pattern.match(word)) {
-				matches.add(word);
-			}
-		}
-		cache.put(patternString, matches);
+		matches = Collections.unmodifiableSet(getMatchesWithPrefix("",
+				pattern));
+		solutionCache.put(patternString, matches);
 		return matches;
 	}
 
@@ -214,22 +273,42 @@ public class Dictionary {
 	 *            pattern
 	 * @return a list of words which match against the specified pattern
 	 */
-	public synchronized Collection<String> getMatchingWords(String pattern) {
+	public Collection<String> getMatchingWords(String pattern) {
 		// Check the cache first for faster retrieval
-		if (cache.containsKey(pattern)) {
-			return cache.get(pattern);
+		Collection<String> matches = cache.get(pattern);
+		if (matches != null) {
+			return matches;
 		}
 
-		Set<String> words = new HashSet<>();
-		// Go through all words of the dictionary
-		for (String w : dictionary) {
-			// If the dictionary word matches the pattern, return it
-			if (SolutionPattern.match(pattern, w)) {
-				words.add(w);
-			}
+		// Find the words with the right letters in the right places
+		matches = Collections.unmodifiableSet(words.match(pattern, false));
+		cache.put(pattern, matches);
+		return matches;
+	}
+
+	/**
+	 * Find the dictionary words which use exactly the given characters, e.g.
+	 * "enlist", "listen" and "silent" for "tinsel"
+	 * 
+	 * @param characters
+	 *            - the characters the words must be made of, in any order
+	 * @return the words which are anagrams of the characters (including the
+	 *         characters themselves, if they form a word)
+	 */
+	public Collection<String> getAnagrams(String characters) {
+		// The same characters in any order have the same anagrams
+		char[] chars = characters.toCharArray();
+		Arrays.sort(chars);
+		String key = new String(chars);
+
+		// Check the cache first for faster retrieval
+		Collection<String> anagrams = anagramCache.get(key);
+		if (anagrams != null) {
+			return anagrams;
 		}
-		cache.put(pattern.toString(), words);
-		return words;
+		anagrams = Collections.unmodifiableList(words.getAnagrams(key));
+		anagramCache.put(key, anagrams);
+		return anagrams;
 	}
 
 	/**
@@ -246,16 +325,41 @@ public class Dictionary {
 		// Standardise the given prefix
 		prefix = prefix.toLowerCase().trim();
 
-		Collection<String> matches = new HashSet<>();
-		// Have the manually check all dictionary words for all matches
-		for (String w : dictionary) {
-			// Get rid of punctuation and spaces
+		// Only the words beginning with the prefix are visited
+		return words.getWords(prefix, length);
+	}
+
+	/**
+	 * Return a collection of dictionary words which begin with the specified
+	 * prefix and match the solution pattern. As with
+	 * <code>getMatches()</code>, case, spaces and hyphens are ignored, and the
+	 * pattern gives the length and any known characters of the whole word,
+	 * including the prefix. Unlike <code>getMatches()</code>, the result isn't
+	 * cached, as a search will rarely ask for the same prefix twice.
+	 * 
+	 * @param prefix
+	 *            - the characters the words must begin with
+	 * @param pattern
+	 *            - the pattern of the solution, e.g. "?a??e,?n"
+	 * @return the words beginning with the prefix which fit the pattern
+	 */
+	public Set<String> getMatchesWithPrefix(String prefix,
+			SolutionPattern pattern) {
+		// The graph ignores the separators, so use the letters only
+		StringBuilder letters = new StringBuilder(pattern.getTotalLength());
+		for (String word : pattern.splitPattern()) {
+			letters.append(word);
+		}
+
+		Set<String> found = new HashSet<>();
+		// Only check the words with the right letters in the right places
+		for (String word : words.match(prefix, letters.toString(), true)) {
 			// Return it if it matches the pattern
-			if (w.length() == length && w.startsWith(prefix)) {
-				matches.add(w);
+			if (pattern.match(word)) {
+				found.add(word);
 			}
 		}
-		return matches;
+		return found;
 	}
 
 	/**
@@ -268,7 +372,7 @@ public class Dictionary {
 	 *         otherwise
 	 */
 	public boolean isWord(String word) {
-		return dictionary.contains(word.toLowerCase().trim());
+		return words.contains(word.toLowerCase().trim());
 	}
 
 	/**
@@ -282,12 +386,34 @@ public class Dictionary {
 	 */
 	public boolean areWords(String input) {
 		if (input != null && !input.isEmpty()) {
-			String[] words = input.split(WordUtils.SPACE_AND_HYPHEN);
-			// Check each word
-			for (String word : words) {
-				if (!isWord(word)) {
-					return false;
+			// Split on whitespace and hyphens without a regular expression, as
+			// this is called for every synonym while loading the thesaurus
+			final int length = input.length();
+			// An empty word has been found, which only counts if there are
+			// more words after it (just as with String.split)
+			boolean empty = false;
+			int start = 0;
+			for (int i = 0; i <= length; i++) {
+				char c = i < length ? input.charAt(i) : '-';
+				boolean whitespace = WordUtils.isWhitespace(c);
+				if (c != '-' && !whitespace) {
+					continue;
+				}
+				if (start == i) {
+					empty = true;
+				} else {
+					if (empty && !isWord("")
+							|| !isWord(input.substring(start, i))) {
+						return false;
+					}
+					empty = false;
 				}
+				// Runs of whitespace are a single separator
+				while (whitespace && i + 1 < length
+						&& WordUtils.isWhitespace(input.charAt(i + 1))) {
+					i++;
+				}
+				start = i + 1;
 			}
 		}
 		return true;
@@ -303,15 +429,85 @@ public class Dictionary {
 	 *         dictionary, <code>false</code> otherwise
 	 */
 	public boolean prefixMatch(String prefix) {
-		// Standarise the given prefix
-		prefix = prefix.toLowerCase().trim();
-		// System.out
-		// .println("Words beginning with \""
-		// + prefix
-		// + "\"? "
-		// + (prefixDictionary.getKeysStartingWith(prefix).size() > 0 ? "Yes"
-		// : "No"));
-		return prefixDictionary.getKeysStartingWith(prefix).size() > 0;
+		// Standardise the given prefix as it's followed, rather than copying it
+		int start = 0;
+		int end = prefix.length();
+		while (start < end && prefix.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && prefix.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		int node = WordGraph.ROOT;
+		for (int i = start; i < end && node != WordGraph.NONE; i++) {
+			node = words.step(node, Character.toLowerCase(prefix.charAt(i)));
+		}
+		return node != WordGraph.NONE;
+	}
+
+	/**
+	 * Determine if the specified prefix could be the beginning of a solution
+	 * which fits the pattern. The prefix is split up into the words of the
+	 * pattern, just as <code>dictionaryFilter()</code> would, so each word it
+	 * completes must be in the dictionary, and the word it ends part way
+	 * through must begin a dictionary word of the right length. Every
+	 * character must also agree with any known character of the pattern.
+	 * 
+	 * @param prefix
+	 *            - the beginning of a solution. Any spaces or hyphens in it
+	 *            are skipped, as the pattern gives where the words end
+	 * @param pattern
+	 *            - the pattern of the solution
+	 * @return <code>false</code> if no solution which fits the pattern and
+	 *         passes <code>dictionaryFilter()</code> begins with the prefix
+	 */
+	public boolean prefixMatch(String prefix, SolutionPattern pattern) {
+		int[] lengths = pattern.getIndividualWordLengths();
+		// The pattern has one separator between each of its words
+		String known = pattern.toString();
+		// The word of the pattern being followed, where it starts in the
+		// pattern, and its characters so far
+		int word = 0;
+		int start = 0;
+		int length = 0;
+		int node = WordGraph.ROOT;
+		for (int i = 0; i < prefix.length(); i++) {
+			char c = Character.toLowerCase(prefix.charAt(i));
+			if (WordUtils.isSpaceOrHyphen(c)) {
+				continue;
+			}
+			if (length == lengths[word]) {
+				// The next word is about to begin, so this one must be complete
+				if (!words.isWord(node) || word + 1 == lengths.length) {
+					return false;
+				}
+				start += lengths[word] + 1;
+				word++;
+				length = 0;
+				node = WordGraph.ROOT;
+			}
+			char wanted = known.charAt(start + length);
+			if (wanted != SolutionPattern.UNKNOWN_CHARACTER && wanted != c) {
+				return false;
+			}
+			node = words.step(node, c);
+			if (node == WordGraph.NONE) {
+				return false;
+			}
+			length++;
+		}
+		return words.mayEndAfterCharacters(node, lengths[word] - length);
+	}
+
+	/**
+	 * Get the graph of the dictionary's words, so that a search can be
+	 * checked against the dictionary one character at a time
+	 * 
+	 * @return the words of the dictionary
+	 */
+	public WordGraph getWords() {
+		return words;
 	}
 
 	/**
@@ -321,8 +517,13 @@ public class Dictionary {
 	 * @return the dictionary
 	 */
 	public static Dictionary getInstance() {
+		// Only lock if the instance hasn't been created yet
 		if (instance == null) {
-			instance = new Dictionary();
+			synchronized (Dictionary.class) {
+				if (instance == null) {
+					instance = new Dictionary();
+				}
+			}
 		}
 		return instance;
 	}
@@ -337,18 +538,31 @@ public class Dictionary {
 	 */
 	private class DictionaryCache extends Cache<String, Collection<String>> {
 
-		// Elements to be cached on application initialisation
-		private final String[] PRE_POPULATE_ITEMS = new String[] { "?", "??",
-				"???", "????", "?????", "??????", "???????", "????????",
-				"?????????", "??????????", "???????????", "????????????",
-				"?????????????", "??????????????", "????????????????" };
+		/**
+		 * Default constructor. Sizes the cache from the application settings.
+		 * The weight of an entry is the number of words it holds.
+		 */
+		private DictionaryCache() {
+			super(settings.getLongSetting("cache.dictionary.maxWeight",
+					2000000), COLLECTION_WEIGHER, settings.getLongSetting(
+					"cache.dictionary.expireAfterWrite", 0));
+		}
+
+		// Patterns of up to this many unknown letters are cached on
+		// application initialisation. There are few enough short words to
+		// keep them all, longer ones are left to the word graph
+		private static final int PRE_POPULATE_LENGTH = 3;
 
 		/**
-		 * Fill the cache with the pre-defined items
+		 * Fill the cache with the words of every length up to
+		 * <code>PRE_POPULATE_LENGTH</code>
 		 */
 		private void prePopulate() {
-			for (String item : PRE_POPULATE_ITEMS) {
-				cache.prePut(item, getMatchingWords(item));
+			StringBuilder item = new StringBuilder();
+			for (int length = 1; length <= PRE_POPULATE_LENGTH; length++) {
+				item.append('?');
+				cache.prePut(item.toString(),
+						getMatchingWords(item.toString()));
 			}
 		}
 
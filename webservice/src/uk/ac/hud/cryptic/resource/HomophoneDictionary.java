@@ -7,6 +7,7 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -19,6 +20,8 @@ import uk.ac.hud.cryptic.util.Cache;
 import uk.ac.hud.cryptic.util.Util;
 import uk.ac.hud.cryptic.util.WordUtils;
 
+import com.google.common.collect.ImmutableMap;
+
 /**
  * An interface to the homophone dictionary file(s)
  * 
@@ -27,9 +30,13 @@ import uk.ac.hud.cryptic.util.WordUtils;
  */
 public class HomophoneDictionary {
 	// Thesaurus Instance
-	private static HomophoneDictionary instance;
+	private static volatile HomophoneDictionary instance;
 	// Settings Instance
 	private static Settings settings = Settings.getInstance();
+	// Name of the snapshot
+	private static final String SNAPSHOT = "homophones";
+	// Incremented whenever the layout of the snapshot changes
+	private static final int SNAPSHOT_FORMAT = 1;
 	// The separator between the word and its pronunciation
 	private static final String SEPARATOR = "\\s{2}";
 	// The comment indicator
@@ -46,13 +53,26 @@ public class HomophoneDictionary {
 	 */
 	private HomophoneDictionary() {
 		populateDictionaryFromFile();
-		cache = new Cache<>();
+		cache = new Cache<String, Set<String>>(settings.getLongSetting(
+				"cache.homophones.maxWeight", 100000), Cache.COLLECTION_WEIGHER,
+				settings.getLongSetting("cache.homophones.expireAfterWrite", 0));
 	}
 
 	/**
-	 * Load the dictionary into a HashMap to allow for much faster access
+	 * Load the dictionary into a HashMap to allow for much faster access. The
+	 * snapshot is used if it is up to date, otherwise the text file is read
+	 * and a new snapshot is saved.
 	 */
 	private void populateDictionaryFromFile() {
+		Snapshot snapshot = Snapshot.load(SNAPSHOT, SNAPSHOT_FORMAT, 3,
+				Settings.HOMOPHONE_DICTIONARY);
+		if (snapshot != null) {
+			dictionary = fromSnapshot(snapshot);
+			populateReverseDictionary();
+			reverseDictionary = Util.toImmutableListMap(reverseDictionary);
+			return;
+		}
+
 		InputStream is = settings.getHomophoneDictionaryStream();
 
 		// Instantiate the homophone dictionary object
@@ -91,12 +111,105 @@ public class HomophoneDictionary {
 			// Effectively swap round the keys / values
 			populateReverseDictionary();
 
+			// Never modified from now on, so can be safely shared between
+			// threads
+			dictionary = ImmutableMap.copyOf(dictionary);
+			reverseDictionary = Util.toImmutableListMap(reverseDictionary);
+
+			// Save the result to speed up the next load
+			Snapshot.save(SNAPSHOT, toSnapshot(dictionary));
+
 		} catch (IOException e) {
 			System.err
 					.println("Exception in Homophone Dictionary initialisation.");
 		}
 	}
 
+	/**
+	 * Compile the dictionary into a snapshot. Each word and phoneme is stored
+	 * once in the string table. The first array holds the (string table index
+	 * of) each word, and the third holds the phonemes of every word one after
+	 * the other. The second array marks where each word's phonemes begin in
+	 * the third, with a final element marking the end.
+	 * 
+	 * @param dictionary
+	 *            - the loaded dictionary
+	 * @return the snapshot of the dictionary
+	 */
+	private static Snapshot toSnapshot(Map<String, List<String>> dictionary) {
+		Map<String, Integer> ids = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+		int[] words = new int[dictionary.size()];
+		int[] offsets = new int[dictionary.size() + 1];
+		List<Integer> phonemes = new ArrayList<>();
+
+		int entry = 0;
+		for (Entry<String, List<String>> e : dictionary.entrySet()) {
+			words[entry] = getId(e.getKey(), ids, strings);
+			offsets[entry] = phonemes.size();
+			for (String phoneme : e.getValue()) {
+				phonemes.add(getId(phoneme, ids, strings));
+			}
+			entry++;
+		}
+		offsets[entry] = phonemes.size();
+
+		int[] values = new int[phonemes.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = phonemes.get(i);
+		}
+		return new Snapshot(SNAPSHOT_FORMAT, strings.toArray(new String[strings
+				.size()]), words, offsets, values);
+	}
+
+	/**
+	 * Get the string table index of a word or phoneme, adding it if necessary
+	 * 
+	 * @param string
+	 *            - the word or phoneme to look up
+	 * @param ids
+	 *            - the strings already in the table, with their indexes
+	 * @param strings
+	 *            - the string table
+	 * @return the index of the string in the string table
+	 */
+	private static int getId(String string, Map<String, Integer> ids,
+			List<String> strings) {
+		Integer id = ids.get(string);
+		if (id == null) {
+			id = strings.size();
+			ids.put(string, id);
+			strings.add(string);
+		}
+		return id;
+	}
+
+	/**
+	 * Rebuild the dictionary from a snapshot
+	 * 
+	 * @param snapshot
+	 *            - a snapshot created by <code>toSnapshot</code>
+	 * @return the word to pronunciation mapping
+	 */
+	private static Map<String, List<String>> fromSnapshot(Snapshot snapshot) {
+		String[] strings = snapshot.getStrings();
+		int[] words = snapshot.getArray(0);
+		int[] offsets = snapshot.getArray(1);
+		int[] phonemes = snapshot.getArray(2);
+
+		ImmutableMap.Builder<String, List<String>> builder = ImmutableMap
+				.builder();
+		for (int entry = 0; entry < words.length; entry++) {
+			String[] pronunciation = new String[offsets[entry + 1]
+					- offsets[entry]];
+			for (int i = 0; i < pronunciation.length; i++) {
+				pronunciation[i] = strings[phonemes[offsets[entry] + i]];
+			}
+			builder.put(strings[words[entry]], Arrays.asList(pronunciation));
+		}
+		return builder.build();
+	}
+
 	/**
 	 * This allows pronunciations to be looked up faster. For example, looking
 	 * up the pronunciation "HH AH0 L OW1" will return "hello". This saves
@@ -123,8 +236,13 @@ public class HomophoneDictionary {
 	 * @return the homophone dictionary
 	 */
 	public static HomophoneDictionary getInstance() {
+		// Only lock if the instance hasn't been created yet
 		if (instance == null) {
-			instance = new HomophoneDictionary();
+			synchronized (HomophoneDictionary.class) {
+				if (instance == null) {
+					instance = new HomophoneDictionary();
+				}
+			}
 		}
 		return instance;
 	}
@@ -164,13 +282,14 @@ public class HomophoneDictionary {
 	 * @return a set of words which share the same pronunciation (homonyms) as
 	 *         the supplied word
 	 */
-	public synchronized Set<String> getHomonyms(String word) {
+	public Set<String> getHomonyms(String word) {
 		// First check the cache
-		if (cache.containsKey(word)) {
-			return cache.get(word);
+		Set<String> homonyms = cache.get(word);
+		if (homonyms != null) {
+			return homonyms;
 		}
 		// This will hold the words that are pronounced the same
-		Set<String> homonyms = new HashSet<>();
+		homonyms = new HashSet<>();
 		// Get the pronunciations of the supplied word
 		Collection<List<String>> pronunciations = getPronunciations(word);
 		// For each of these pronunciations
@@ -178,11 +297,12 @@ public class HomophoneDictionary {
 			if (reverseDictionary.containsKey(pronunciation)) {
 				homonyms.addAll(reverseDictionary.get(pronunciation));
 			}
-			// Remove the original word, if present
-			homonyms.remove(word);
-			// Add results to the cache
-			cache.put(word, homonyms);
 		}
+		// Remove the original word, if present
+		homonyms.remove(word);
+		// Add results to the cache. These are shared, so can't be modified
+		homonyms = Collections.unmodifiableSet(homonyms);
+		cache.put(word, homonyms);
 		return homonyms;
 	}
 
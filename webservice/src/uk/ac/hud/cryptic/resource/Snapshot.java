@@ -0,0 +1,266 @@
+package uk.ac.hud.cryptic.resource;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import uk.ac.hud.cryptic.config.Settings;
+
+/**
+ * A compact, binary copy of a loaded resource, which is much quicker to read
+ * than the original text files. A snapshot is made up of a table of strings,
+ * with each string appearing only once, followed by any number of integer
+ * arrays. The arrays usually refer to the strings by their index in the table.
+ * What the arrays hold is up to each resource, which gives the layout it uses
+ * a format number. A snapshot is only loaded if its format matches the one
+ * the resource expects, so snapshots written by an older version are ignored.
+ *
+ * Snapshots are written the first time a resource is loaded from its text
+ * files, and are read (using a memory mapped file) on subsequent loads for as
+ * long as they are newer than all of the text files they were compiled from.
+ * They can also be compiled ahead of time by running this class.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+class Snapshot {
+
+	// Identifies a snapshot file ("CRYP")
+	private static final int MAGIC = 0x43525950;
+	// Incremented whenever the layout of the snapshot file changes
+	private static final int VERSION = 2;
+
+	// Settings Instance
+	private static Settings settings = Settings.getInstance();
+
+	// The resource's format of the arrays
+	private final int format;
+	// The string table
+	private final String[] strings;
+	// The integer arrays
+	private final int[][] arrays;
+
+	/**
+	 * Create a snapshot from its contents
+	 *
+	 * @param format
+	 *            - the resource's format of the arrays, which should change
+	 *            whenever what the arrays hold changes
+	 * @param strings
+	 *            - the string table
+	 * @param arrays
+	 *            - the integer arrays
+	 */
+	Snapshot(int format, String[] strings, int[]... arrays) {
+		this.format = format;
+		this.strings = strings;
+		this.arrays = arrays;
+	}
+
+	/**
+	 * @return the resource's format of the arrays
+	 */
+	int getFormat() {
+		return format;
+	}
+
+	/**
+	 * @return the string table
+	 */
+	String[] getStrings() {
+		return strings;
+	}
+
+	/**
+	 * Get one of the integer arrays
+	 *
+	 * @param index
+	 *            - the position of the array in the snapshot
+	 * @return the requested array
+	 */
+	int[] getArray(int index) {
+		return arrays[index];
+	}
+
+	/**
+	 * Load the named snapshot, if snapshots are enabled, it is newer than all
+	 * of the assets it was compiled from and it is in the expected format
+	 *
+	 * @param name
+	 *            - the name of the snapshot, e.g. "dictionary"
+	 * @param format
+	 *            - the format the resource expects the arrays to be in
+	 * @param arrayCount
+	 *            - the number of arrays the snapshot should contain
+	 * @param sources
+	 *            - the paths of the assets the snapshot was compiled from
+	 * @return the snapshot, or <code>null</code> if it can't be used
+	 */
+	static Snapshot load(String name, int format, int arrayCount,
+			String... sources) {
+		if (!settings.isSnapshotEnabled()) {
+			return null;
+		}
+		File file = settings.getSnapshotFile(name);
+		if (!settings.isSnapshotCurrent(file, sources)) {
+			return null;
+		}
+		try {
+			Snapshot snapshot = read(file);
+			if (snapshot.format == format
+					&& snapshot.arrays.length == arrayCount) {
+				return snapshot;
+			}
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Unable to read the " + name + " snapshot.");
+		}
+		return null;
+	}
+
+	/**
+	 * Save a snapshot under the given name, if snapshots are enabled. Failure
+	 * to save isn't fatal, the resource will just be loaded from its text
+	 * files again next time.
+	 *
+	 * @param name
+	 *            - the name of the snapshot, e.g. "dictionary"
+	 * @param snapshot
+	 *            - the snapshot to save
+	 */
+	static void save(String name, Snapshot snapshot) {
+		if (!settings.isSnapshotEnabled()) {
+			return;
+		}
+		File file = settings.getSnapshotFile(name);
+		try {
+			snapshot.write(file);
+		} catch (IOException e) {
+			System.err.println("Unable to write the " + name + " snapshot.");
+		}
+	}
+
+	/**
+	 * Write the snapshot to a file. The snapshot is first written to a
+	 * temporary file, which then replaces the original, so a partly written
+	 * snapshot is never read.
+	 *
+	 * @param file
+	 *            - the file to write to
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	void write(File file) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Cannot create " + dir);
+		}
+		File temp = File.createTempFile(file.getName(), ".tmp", dir);
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(format);
+
+			// String table
+			out.writeInt(strings.length);
+			for (String s : strings) {
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+
+			// Integer arrays
+			out.writeInt(arrays.length);
+			for (int[] array : arrays) {
+				out.writeInt(array.length);
+				for (int i : array) {
+					out.writeInt(i);
+				}
+			}
+		}
+		if (file.exists() && !file.delete() || !temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Cannot replace " + file);
+		}
+	}
+
+	/**
+	 * Read a snapshot from a file
+	 *
+	 * @param file
+	 *            - the file to read from
+	 * @return the snapshot
+	 * @throws IOException
+	 *             if the file can't be read, or isn't a valid snapshot
+	 */
+	static Snapshot read(File file) throws IOException {
+		try (FileInputStream in = new FileInputStream(file);
+				FileChannel channel = in.getChannel()) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+					0, channel.size());
+
+			if (buffer.remaining() < 12 || buffer.getInt() != MAGIC
+					|| buffer.getInt() != VERSION) {
+				throw new IOException("Not a current snapshot: " + file);
+			}
+			return read(buffer.getInt(), buffer);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Incomplete snapshot: " + file);
+		}
+	}
+
+	/**
+	 * Read the contents of a snapshot, after the header
+	 *
+	 * @param format
+	 *            - the resource's format of the arrays, from the header
+	 * @param buffer
+	 *            - the snapshot file, mapped into memory
+	 * @return the snapshot
+	 */
+	private static Snapshot read(int format, MappedByteBuffer buffer) {
+		// String table
+		String[] strings = new String[buffer.getInt()];
+		byte[] bytes = new byte[64];
+		for (int i = 0; i < strings.length; i++) {
+			int length = buffer.getInt();
+			if (length > bytes.length) {
+				bytes = new byte[length];
+			}
+			buffer.get(bytes, 0, length);
+			strings[i] = new String(bytes, 0, length,
+					StandardCharsets.UTF_8);
+		}
+
+		// Integer arrays
+		int[][] arrays = new int[buffer.getInt()][];
+		for (int i = 0; i < arrays.length; i++) {
+			arrays[i] = new int[buffer.getInt()];
+			buffer.asIntBuffer().get(arrays[i]);
+			buffer.position(buffer.position() + 4 * arrays[i].length);
+		}
+		return new Snapshot(format, strings, arrays);
+	}
+
+	/**
+	 * Compile the snapshots ahead of time, e.g. as part of a build. Loading
+	 * each resource writes its snapshot if there isn't a current one.
+	 */
+	public static void main(String[] args) {
+		long start = System.currentTimeMillis();
+		Dictionary.getInstance();
+		Thesaurus.getInstance();
+		HomophoneDictionary.getInstance();
+		System.out.println("Snapshots are in "
+				+ settings.getSnapshotFile("").getParent() + " ("
+				+ (System.currentTimeMillis() - start) + "ms)");
+	}
+
+} // End of class Snapshot
@@ -6,18 +6,19 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 
 import uk.ac.hud.cryptic.config.Settings;
 import uk.ac.hud.cryptic.core.Clue;
+import uk.ac.hud.cryptic.core.ResultCache;
 import uk.ac.hud.cryptic.core.Solution;
 import uk.ac.hud.cryptic.core.SolutionCollection;
 import uk.ac.hud.cryptic.core.SolutionPattern;
@@ -29,16 +30,43 @@ import uk.ac.hud.cryptic.util.WordUtils;
 /**
  * An interface to the thesaurus file(s)
  * 
+ * Each word in the thesaurus is given an integer ID (its position in a sorted
+ * array of every word), and the synonyms of each entry are stored as ranges of
+ * IDs in a single array. A second, reverse set of ranges holds the entries in
+ * which each word appears as a synonym, so lookups in either direction only
+ * touch the words involved.
+ * 
  * @author Stuart Leader, Leanne Butcher
- * @version 0.2
+ * @version 0.3
  */
 public class Thesaurus {
 	// Thesaurus Instance
-	private static Thesaurus instance;
+	private static volatile Thesaurus instance;
 	// Settings Instance
 	private static Settings settings = Settings.getInstance();
-	// Actual thesaurus data structure
-	private Map<String, Set<String>> thesaurus;
+	// Name of the snapshot
+	private static final String SNAPSHOT = "thesaurus";
+	// Incremented whenever the layout of the snapshot changes
+	private static final int SNAPSHOT_FORMAT = 3;
+	// The assets the thesaurus is loaded from. Synonyms are only kept if they
+	// are in the dictionary, so it depends on the dictionary too
+	private static final String[] SOURCES = { Settings.THESAURUS,
+			Settings.CUSTOM_THESAURUS, Dictionary.SOURCES[0],
+			Dictionary.SOURCES[1], Dictionary.SOURCES[2] };
+	// Every word in the thesaurus, in order. A word's index is its ID
+	private String[] words;
+	// The IDs of the words which have an entry of their own
+	private BitSet headwords;
+	// The synonyms of entry i are synonyms[synonymOffsets[i]] up to (but not
+	// including) synonyms[synonymOffsets[i + 1]], in ID order
+	private int[] synonymOffsets;
+	private int[] synonyms;
+	// The entries containing word i as a synonym are laid out in the same way,
+	// but ordered by length so those of a given length can be found quickly
+	private int[] entryOffsets;
+	private int[] entries;
+	// The length of each word, as it would appear in a grid
+	private int[] lengths;
 	// Cache to speed up some operations
 	private Cache<String, Set<String>> cache;
 
@@ -46,8 +74,12 @@ public class Thesaurus {
 	 * Default Constructor
 	 */
 	private Thesaurus() {
-		cache = new Cache<>();
+		cache = new Cache<String, Set<String>>(settings.getLongSetting(
+				"cache.thesaurus.maxWeight", 500000), Cache.COLLECTION_WEIGHER,
+				settings.getLongSetting("cache.thesaurus.expireAfterWrite", 0));
 		populateThesaurusFromFile();
+		// Solutions found with any earlier thesaurus are now out of date
+		ResultCache.getInstance().invalidateAll();
 	}
 
 	public static void main(String[] args) {
@@ -77,19 +109,285 @@ public class Thesaurus {
 	}
 
 	/**
-	 * Load the thesaurus into a HashSet to allow for much faster access
+	 * Load the thesaurus into ID based arrays to allow for much faster access.
+	 * The snapshot is used if it is up to date, otherwise the text files are
+	 * read and a new snapshot is saved.
 	 */
 	private void populateThesaurusFromFile() {
+		Snapshot snapshot = Snapshot.load(SNAPSHOT, SNAPSHOT_FORMAT, 6,
+				SOURCES);
+		if (snapshot != null) {
+			fromSnapshot(snapshot);
+			return;
+		}
+
 		InputStream[] is = { settings.getThesaurusStream(),
 				settings.getCustomThesaurusStream() };
 
-		// Instantiate the thesaurus object
-		thesaurus = new HashMap<>();
+		// Entries are gathered in a map while the files are read
+		Map<String, Set<String>> thesaurus = new HashMap<>();
 
 		// Read specified dictionary to internal data structure
 		for (InputStream element : is) {
-			readFile(element);
+			readFile(element, thesaurus);
+		}
+
+		// Never modified from now on, so can be safely shared between threads
+		index(thesaurus);
+
+		// Save the result to speed up the next load
+		Snapshot.save(SNAPSHOT, toSnapshot());
+	}
+
+	/**
+	 * Build the ID based structures from the entries read from file
+	 * 
+	 * @param thesaurus
+	 *            - the look-up words with their synonyms
+	 */
+	private void index(Map<String, Set<String>> thesaurus) {
+		// Give every word an ID
+		Set<String> all = new TreeSet<>(thesaurus.keySet());
+		int total = 0;
+		for (Set<String> entry : thesaurus.values()) {
+			all.addAll(entry);
+			total += entry.size();
+		}
+		words = all.toArray(new String[all.size()]);
+		lengths = new int[words.length];
+		for (int id = 0; id < words.length; id++) {
+			lengths[id] = getGridLength(words[id]);
+		}
+
+		// The forward edges, from each entry to its synonyms
+		headwords = new BitSet(words.length);
+		synonymOffsets = new int[words.length + 1];
+		synonyms = new int[total];
+		int position = 0;
+		for (int id = 0; id < words.length; id++) {
+			synonymOffsets[id] = position;
+			Set<String> entry = thesaurus.get(words[id]);
+			if (entry != null) {
+				headwords.set(id);
+				for (String synonym : entry) {
+					synonyms[position++] = getId(synonym);
+				}
+				Arrays.sort(synonyms, synonymOffsets[id], position);
+			}
+		}
+		synonymOffsets[words.length] = position;
+
+		indexEntries();
+	}
+
+	/**
+	 * The length of a word once spaces and hyphens are removed
+	 * 
+	 * @param word
+	 *            - the word to measure
+	 * @return the number of characters the word takes up in a grid
+	 */
+	private static int getGridLength(String word) {
+		int length = 0;
+		for (int i = 0; i < word.length(); i++) {
+			if (!WordUtils.isSpaceOrHyphen(word.charAt(i))) {
+				length++;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Build the reverse edges, from each word to the entries it is a synonym
+	 * in. Each range is sorted by length, then by ID.
+	 */
+	private void indexEntries() {
+		// Count the entries of each word, then turn the counts into offsets
+		entryOffsets = new int[words.length + 1];
+		for (int synonym : synonyms) {
+			entryOffsets[synonym + 1]++;
+		}
+		for (int id = 0; id < words.length; id++) {
+			entryOffsets[id + 1] += entryOffsets[id];
+		}
+
+		entries = new int[synonyms.length];
+		int[] next = Arrays.copyOf(entryOffsets, words.length);
+		for (int id = 0; id < words.length; id++) {
+			for (int i = synonymOffsets[id]; i < synonymOffsets[id + 1]; i++) {
+				entries[next[synonyms[i]]++] = id;
+			}
+		}
+
+		// Order each range by length, using the length as the high bits of a
+		// sort key so a plain sort can be used
+		long[] keys = new long[64];
+		for (int id = 0; id < words.length; id++) {
+			int from = entryOffsets[id];
+			int count = entryOffsets[id + 1] - from;
+			if (count > keys.length) {
+				keys = new long[count];
+			}
+			for (int i = 0; i < count; i++) {
+				int entry = entries[from + i];
+				keys[i] = (long) lengths[entry] << 32 | entry;
+			}
+			Arrays.sort(keys, 0, count);
+			for (int i = 0; i < count; i++) {
+				entries[from + i] = (int) keys[i];
+			}
+		}
+	}
+
+	/**
+	 * Compile the thesaurus into a snapshot. The string table is the sorted
+	 * word list, so a word's ID is its index there. The first array holds the
+	 * IDs of the look-up words, then come the offsets and synonyms of the
+	 * forward edges, the offsets and entries of the reverse edges and finally
+	 * the length of each word.
+	 * 
+	 * @return the snapshot of the thesaurus
+	 */
+	private Snapshot toSnapshot() {
+		int[] ids = new int[headwords.cardinality()];
+		int count = 0;
+		for (int id = headwords.nextSetBit(0); id >= 0; id = headwords
+				.nextSetBit(id + 1)) {
+			ids[count++] = id;
+		}
+		return new Snapshot(SNAPSHOT_FORMAT, words, ids, synonymOffsets,
+				synonyms, entryOffsets, entries, lengths);
+	}
+
+	/**
+	 * Restore the thesaurus from a snapshot
+	 * 
+	 * @param snapshot
+	 *            - a snapshot created by <code>toSnapshot</code>
+	 */
+	private void fromSnapshot(Snapshot snapshot) {
+		words = snapshot.getStrings();
+		headwords = new BitSet(words.length);
+		for (int id : snapshot.getArray(0)) {
+			headwords.set(id);
+		}
+		synonymOffsets = snapshot.getArray(1);
+		synonyms = snapshot.getArray(2);
+		entryOffsets = snapshot.getArray(3);
+		entries = snapshot.getArray(4);
+		lengths = snapshot.getArray(5);
+	}
+
+	/**
+	 * Get the ID of a word
+	 * 
+	 * @param word
+	 *            - the word to look up (may be <code>null</code>)
+	 * @return the ID of the word, or -1 if it isn't in the thesaurus
+	 */
+	private int getId(String word) {
+		if (word == null) {
+			return -1;
 		}
+		int id = Arrays.binarySearch(words, word);
+		return id < 0 ? -1 : id;
+	}
+
+	/**
+	 * @param id
+	 *            - the ID of a word, or -1
+	 * @return <code>true</code> if the word has an entry of its own
+	 */
+	private boolean isEntry(int id) {
+		return id >= 0 && headwords.get(id);
+	}
+
+	/**
+	 * Check whether an entry lists a word as a synonym
+	 * 
+	 * @param entry
+	 *            - the ID of the entry
+	 * @param word
+	 *            - the word to look for
+	 * @return <code>true</code> if the word is one of the entry's synonyms
+	 */
+	private boolean hasSynonym(int entry, String word) {
+		int id = getId(word);
+		return id >= 0
+				&& Arrays.binarySearch(synonyms, synonymOffsets[entry],
+						synonymOffsets[entry + 1], id) >= 0;
+	}
+
+	/**
+	 * Add the synonyms of an entry to a set
+	 * 
+	 * @param entry
+	 *            - the ID of the entry
+	 * @param set
+	 *            - the set to add the synonyms to
+	 */
+	private void addSynonyms(int entry, Set<String> set) {
+		addSynonyms(entry, set, null);
+	}
+
+	/**
+	 * Add the synonyms of an entry which match a pattern to a set
+	 * 
+	 * @param entry
+	 *            - the ID of the entry
+	 * @param set
+	 *            - the set to add the synonyms to
+	 * @param pattern
+	 *            - the pattern the synonyms should match, or <code>null</code>
+	 *            to add them all
+	 */
+	private void addSynonyms(int entry, Set<String> set,
+			SolutionPattern pattern) {
+		for (int i = synonymOffsets[entry]; i < synonymOffsets[entry + 1]; i++) {
+			if (matches(synonyms[i], pattern)) {
+				set.add(words[synonyms[i]]);
+			}
+		}
+	}
+
+	/**
+	 * Check a word against a pattern, comparing the lengths first as that
+	 * rules out most words without any string handling
+	 * 
+	 * @param id
+	 *            - the ID of the word
+	 * @param pattern
+	 *            - the pattern to match, or <code>null</code> to match anything
+	 * @return <code>true</code> if the word matches the pattern
+	 */
+	private boolean matches(int id, SolutionPattern pattern) {
+		return pattern == null
+				|| (lengths[id] == pattern.getTotalLength() && pattern
+						.match(words[id]));
+	}
+
+	/**
+	 * Find where the entries of a given length begin in a (length ordered)
+	 * range of the reverse edges
+	 * 
+	 * @param from
+	 *            - the start of the range
+	 * @param to
+	 *            - the end of the range (exclusive)
+	 * @param length
+	 *            - the length to look for
+	 * @return the index of the first entry at least as long as the length
+	 */
+	private int findLength(int from, int to, int length) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (lengths[entries[mid]] < length) {
+				from = mid + 1;
+			} else {
+				to = mid;
+			}
+		}
+		return from;
 	}
 
 	/**
@@ -97,8 +395,11 @@ public class Thesaurus {
 	 * 
 	 * @param element
 	 *            - the Stream to read in
+	 * @param thesaurus
+	 *            - the entries read so far
 	 */
-	private void readFile(InputStream element) {
+	private void readFile(InputStream element,
+			Map<String, Set<String>> thesaurus) {
 		// Try-with-resources. Readers are automatically closed after use
 		try (BufferedReader br = new BufferedReader(new InputStreamReader(
 				element))) {
@@ -138,10 +439,11 @@ public class Thesaurus {
 		// Use of HashSet prevents duplicates
 		Set<String> matchingSynonyms = new HashSet<>();
 
-		if (thesaurus.containsKey(word)) {
+		int id = getId(word);
+		if (isEntry(id)) {
 			// Get synonyms
-			Collection<String> synonyms = thesaurus.get(word);
-			for (String entry : synonyms) {
+			for (int i = synonymOffsets[id]; i < synonymOffsets[id + 1]; i++) {
+				String entry = words[synonyms[i]];
 				// Synonym must match specified pattern
 				if (pattern.match(entry)) {
 					// Match the word lengths
@@ -245,9 +547,10 @@ public class Thesaurus {
 			int minLength) {
 		// Use of HashSet prevents duplicates
 		Set<String> synonyms = new HashSet<>();
-		if (thesaurus.containsKey(word)) {
-			Collection<String> wordSyns = thesaurus.get(word);
-			for (String synonym : wordSyns) {
+		int id = getId(word);
+		if (isEntry(id)) {
+			for (int i = synonymOffsets[id]; i < synonymOffsets[id + 1]; i++) {
+				String synonym = words[this.synonyms[i]];
 				String[] checkForMultipleWords = synonym
 						.split(WordUtils.SPACE_AND_HYPHEN);
 				if (checkForMultipleWords.length == 1) {
@@ -298,8 +601,9 @@ public class Thesaurus {
 	public Set<String> getSynonyms(String word) {
 		// Use of HashSet prevents duplicates
 		Set<String> synonyms = new HashSet<>();
-		if (thesaurus.containsKey(word)) {
-			synonyms.addAll(thesaurus.get(word));
+		int id = getId(word);
+		if (isEntry(id)) {
+			addSynonyms(id, synonyms);
 		}
 		// Remove the original word which was passed in (if present)
 		synonyms.remove(word);
@@ -315,7 +619,7 @@ public class Thesaurus {
 	 *            - the clue to look for synonyms
 	 * @return a LinkedHashMap of all the synonyms that have been found
 	 */
-	public synchronized Map<String, Set<String>> getSynonymsForClue(String clue) {
+	public Map<String, Set<String>> getSynonymsForClue(String clue) {
 		// This will be returned and will contain any found abbreviations
 		LinkedHashMap<String, Set<String>> synonymMap = new LinkedHashMap<>();
 
@@ -336,8 +640,12 @@ public class Thesaurus {
 				// Create a string from the current indexes
 				String clueWords = composeClueSubstring(clueList, i, j);
 				// If this String has registered abbreviations, note them!
-				if (thesaurus.containsKey(clueWords)) {
-					synonymMap.put(clueWords, thesaurus.get(clueWords));
+				int id = getId(clueWords);
+				if (isEntry(id)) {
+					// A new set, as the caller is free to modify it
+					Set<String> synonyms = new HashSet<>();
+					addSynonyms(id, synonyms);
+					synonymMap.put(clueWords, synonyms);
 					// break;
 				}
 
@@ -379,22 +687,7 @@ public class Thesaurus {
 	 */
 	public Set<String> getEntriesContainingSynonym(String word,
 			boolean includeSiblings) {
-		if (cache.containsKey(word)) {
-			return cache.get(word);
-		}
-		Set<String> synonyms = new HashSet<>();
-		for (Entry<String, Set<String>> entry : thesaurus.entrySet()) {
-			if (entry.getKey().equals(word) || entry.getValue().contains(word)) {
-				if (includeSiblings) {
-					synonyms.addAll(entry.getValue());
-				}
-				synonyms.add(entry.getKey());
-			}
-		}
-		synonyms.remove(word);
-		cache.put(word, synonyms);
-
-		return synonyms;
+		return getEntriesContainingSynonym(word, null, includeSiblings);
 	}
 
 	/**
@@ -404,35 +697,76 @@ public class Thesaurus {
 	 * @param word
 	 *            - the word to get synonyms for
 	 * @param pattern
-	 *            - the pattern the synonyms should match against
+	 *            - the pattern the synonyms should match against, or
+	 *            <code>null</code> for all synonyms
 	 * @return the synonyms in the same entry as the given word which match the
 	 *         given pattern
 	 */
 	public Set<String> getEntriesContainingSynonym(String word,
 			SolutionPattern pattern, boolean includeSiblings) {
-		if (cache.containsKey(word)) {
-			return cache.get(word);
+		// Each combination of arguments has its own results
+		String key = word + "|" + includeSiblings + "|"
+				+ (pattern == null ? "" : pattern.getPattern());
+		Set<String> synonyms = cache.get(key);
+		if (synonyms != null) {
+			// A copy, as the caller is free to modify it
+			return new HashSet<>(synonyms);
 		}
-		Set<String> synonyms = new HashSet<>();
-		for (Entry<String, Set<String>> entry : thesaurus.entrySet()) {
-			if (entry.getKey().equals(word) || entry.getValue().contains(word)) {
-				if (includeSiblings) {
-					synonyms.addAll(entry.getValue());
+		synonyms = findEntriesContainingSynonym(word, pattern, includeSiblings);
+		cache.put(key, Collections.unmodifiableSet(new HashSet<>(synonyms)));
+
+		return synonyms;
+	}
+
+	/**
+	 * Find the entries in which a word appears, either as the look-up word or
+	 * as one of the synonyms, using the reverse edges
+	 * 
+	 * @param word
+	 *            - the word to get synonyms for
+	 * @param pattern
+	 *            - the pattern the results should match, or <code>null</code>
+	 * @param includeSiblings
+	 *            - <code>true</code> to include the other synonyms of each
+	 *            entry, <code>false</code> for just the look-up words
+	 * @return the look-up words (and siblings) of the entries, without the
+	 *         given word
+	 */
+	private Set<String> findEntriesContainingSynonym(String word,
+			SolutionPattern pattern, boolean includeSiblings) {
+		Set<String> found = new HashSet<>();
+		int id = getId(word);
+		if (id < 0) {
+			return found;
+		}
+		int from = entryOffsets[id];
+		int to = entryOffsets[id + 1];
+
+		if (includeSiblings) {
+			if (isEntry(id)) {
+				addSynonyms(id, found, pattern);
+			}
+			for (int i = from; i < to; i++) {
+				addSynonyms(entries[i], found, pattern);
+				if (matches(entries[i], pattern)) {
+					found.add(words[entries[i]]);
 				}
-				synonyms.add(entry.getKey());
 			}
-		}
-		synonyms.remove(word);
-		Iterator<String> it = synonyms.iterator();
-		while (it.hasNext()) {
-			String synonym = it.next();
-			if (!pattern.match(synonym)) {
-				it.remove();
+		} else {
+			// Only the look-up words are wanted, so skip straight to those of
+			// the right length
+			if (pattern != null) {
+				from = findLength(from, to, pattern.getTotalLength());
+				to = findLength(from, to, pattern.getTotalLength() + 1);
+			}
+			for (int i = from; i < to; i++) {
+				if (matches(entries[i], pattern)) {
+					found.add(words[entries[i]]);
+				}
 			}
 		}
-		cache.put(word, synonyms);
-
-		return synonyms;
+		found.remove(word);
+		return found;
 	}
 
 	/**
@@ -473,13 +807,13 @@ public class Thesaurus {
 			solutions = new String[] { solution.getSolution().toLowerCase() };
 		}
 		for (String s : solutions) {
-			if (thesaurus.containsKey(s)) {
-				Collection<String> synonyms = thesaurus.get(s);
+			int id = getId(s);
+			if (isEntry(id)) {
 				for (String clueWord : clueWords) {
-					if (synonyms.contains(clueWord)) {
-						solution.addToTrace("Confidence rating slightly increased as the clue word \""
-								+ clueWord
-								+ "\" is a synonym of this solution.");
+					if (hasSynonym(id, clueWord)) {
+						solution.addToTrace(
+								"Confidence rating slightly increased as the clue word \"%s\" is a synonym of this solution.",
+								clueWord);
 						return true;
 					}
 				}
@@ -513,17 +847,19 @@ public class Thesaurus {
 			solutions[1] = pattern.recomposeSolution(solution.getSolution());
 		}
 		for (String clueWord : clueWords) {
-			if (thesaurus.containsKey(clueWord)) {
-				Collection<String> synonyms = thesaurus.get(clueWord);
-				if (synonyms.contains(solutions[0])) {
-					solution.addToTrace("Confidence rating increased as this solution is a synonym of the clue word \""
-							+ clueWord + "\".");
+			int id = getId(clueWord);
+			if (isEntry(id)) {
+				if (hasSynonym(id, solutions[0])) {
+					solution.addToTrace(
+							"Confidence rating increased as this solution is a synonym of the clue word \"%s\".",
+							clueWord);
 					return true;
 				} else if (multipleWords) {
 					for (String word : WordUtils.getWords(solutions[1])) {
-						if (synonyms.contains(word)) {
-							solution.addToTrace("Confidence rating increased as this solution is a synonym of the clue word \""
-									+ clueWord + "\".");
+						if (hasSynonym(id, word)) {
+							solution.addToTrace(
+									"Confidence rating increased as this solution is a synonym of the clue word \"%s\".",
+									clueWord);
 							return true;
 						}
 					}
@@ -540,8 +876,13 @@ public class Thesaurus {
 	 * @return the thesaurus
 	 */
 	public static Thesaurus getInstance() {
+		// Only lock if the instance hasn't been created yet
 		if (instance == null) {
-			instance = new Thesaurus();
+			synchronized (Thesaurus.class) {
+				if (instance == null) {
+					instance = new Thesaurus();
+				}
+			}
 		}
 		return instance;
 	}
@@ -0,0 +1,643 @@
+package uk.ac.hud.cryptic.resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import uk.ac.hud.cryptic.core.SolutionPattern;
+import uk.ac.hud.cryptic.util.WordUtils;
+
+/**
+ * A set of words stored as a minimal acyclic automaton (a DAWG). Each word is a
+ * path of characters from the root, and words which share a prefix or a
+ * suffix share the nodes for it, so the whole dictionary takes a fraction of
+ * the space of a set of strings. The same structure answers whether a word is
+ * present, whether any word begins with a prefix, and which words match a
+ * pattern such as "?a??e".
+ *
+ * The graph is held in a few arrays, which are never modified once built, so
+ * it can be queried by many threads at once without any locking. Nodes are
+ * referred to by their number, with the root being 0 and <code>NONE</code>
+ * meaning there is no such node. Solvers can drive a search themselves,
+ * extending a word one character at a time with <code>step()</code>.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public final class WordGraph {
+
+	// Returned when there is no node for some text
+	public static final int NONE = -1;
+	// The node every word starts from
+	public static final int ROOT = 0;
+	// The number of arrays making up the graph, as saved in a snapshot
+	static final int ARRAY_COUNT = 5;
+
+	// The edges of node n are firstEdge[n] to firstEdge[n + 1] - 1
+	private final int[] firstEdge;
+	// The character of each edge, sorted within each node
+	private final char[] labels;
+	// The node each edge leads to
+	private final int[] targets;
+	// The shortest and longest words which continue from each node, in
+	// characters. Packed as (shortest << 16) | longest. A node ends a word if
+	// the shortest continuation is 0
+	private final int[] lengths;
+	// The same, but not counting spaces and hyphens
+	private final int[] letters;
+
+	/**
+	 * Create a graph from its arrays
+	 */
+	private WordGraph(int[] firstEdge, char[] labels, int[] targets,
+			int[] lengths, int[] letters) {
+		this.firstEdge = firstEdge;
+		this.labels = labels;
+		this.targets = targets;
+		this.lengths = lengths;
+		this.letters = letters;
+	}
+
+	/**
+	 * Build the graph for some words
+	 *
+	 * @param sortedWords
+	 *            - the words, which must be in sorted order
+	 * @return the graph
+	 * @throws IllegalArgumentException
+	 *             if the words aren't sorted
+	 */
+	static WordGraph build(String[] sortedWords) {
+		return new Builder().build(sortedWords);
+	}
+
+	/**
+	 * Recreate a graph from the arrays returned by <code>toArrays()</code>
+	 *
+	 * @param snapshot
+	 *            - the snapshot holding the arrays
+	 * @param offset
+	 *            - the position of the first of the arrays in the snapshot
+	 * @return the graph
+	 */
+	static WordGraph fromSnapshot(Snapshot snapshot, int offset) {
+		int[] labels = snapshot.getArray(offset + 1);
+		char[] chars = new char[labels.length];
+		for (int i = 0; i < labels.length; i++) {
+			chars[i] = (char) labels[i];
+		}
+		return new WordGraph(snapshot.getArray(offset), chars,
+				snapshot.getArray(offset + 2), snapshot.getArray(offset + 3),
+				snapshot.getArray(offset + 4));
+	}
+
+	/**
+	 * @return the arrays making up the graph, ready to save in a snapshot
+	 */
+	int[][] toArrays() {
+		int[] chars = new int[labels.length];
+		for (int i = 0; i < labels.length; i++) {
+			chars[i] = labels[i];
+		}
+		return new int[][] { firstEdge, chars, targets, lengths, letters };
+	}
+
+	/**
+	 * Follow the edge for a character
+	 *
+	 * @param node
+	 *            - the node to start from
+	 * @param c
+	 *            - the next character of the word
+	 * @return the node reached, or <code>NONE</code> if no word continues with
+	 *         the character
+	 */
+	public int step(int node, char c) {
+		if (node == NONE) {
+			return NONE;
+		}
+		int edge = Arrays.binarySearch(labels, firstEdge[node],
+				firstEdge[node + 1], c);
+		return edge < 0 ? NONE : targets[edge];
+	}
+
+	/**
+	 * Follow the edges for some text
+	 *
+	 * @param node
+	 *            - the node to start from
+	 * @param text
+	 *            - the characters to follow
+	 * @return the node reached, or <code>NONE</code> if no word continues with
+	 *         the text
+	 */
+	public int walk(int node, CharSequence text) {
+		for (int i = 0; i < text.length() && node != NONE; i++) {
+			node = step(node, text.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * @return <code>true</code> if a word ends at the node
+	 */
+	public boolean isWord(int node) {
+		return node != NONE && lengths[node] >>> 16 == 0;
+	}
+
+	/**
+	 * Check whether a word could end after exactly the given number of further
+	 * letters (ignoring spaces and hyphens). This only compares against the
+	 * shortest and longest words continuing from the node, so it may say yes
+	 * when there is no such word, but never says no when there is.
+	 *
+	 * @param node
+	 *            - the node reached so far
+	 * @param remaining
+	 *            - the number of letters still to come
+	 * @return <code>false</code> if no word could end after that many letters
+	 */
+	public boolean mayEndAfter(int node, int remaining) {
+		return node != NONE && fits(letters[node], remaining);
+	}
+
+	/**
+	 * The same as <code>mayEndAfter()</code>, but counting every character,
+	 * including spaces and hyphens
+	 *
+	 * @param node
+	 *            - the node reached so far
+	 * @param remaining
+	 *            - the number of characters still to come
+	 * @return <code>false</code> if no word could end after that many
+	 *         characters
+	 */
+	public boolean mayEndAfterCharacters(int node, int remaining) {
+		return node != NONE && fits(lengths[node], remaining);
+	}
+
+	/**
+	 * @return <code>true</code> if the word is in the graph
+	 */
+	public boolean contains(String word) {
+		return isWord(walk(ROOT, word));
+	}
+
+	/**
+	 * @return <code>true</code> if any word in the graph begins with the prefix
+	 */
+	public boolean hasPrefix(String prefix) {
+		return walk(ROOT, prefix) != NONE;
+	}
+
+	/**
+	 * Find all words which match the given pattern. Unknown characters are
+	 * marked with a '?'.
+	 *
+	 * @param pattern
+	 *            - the pattern to match, e.g. "?a??e"
+	 * @param normalise
+	 *            - <code>true</code> to match words as they would appear in a
+	 *            grid, ignoring case and any spaces or hyphens (in the words
+	 *            or the pattern), <code>false</code> to match each character
+	 *            exactly
+	 * @return the words matching the pattern
+	 */
+	public Set<String> match(String pattern, boolean normalise) {
+		if (normalise) {
+			pattern = WordUtils.removeSpacesAndHyphens(pattern).toLowerCase();
+		}
+		Set<String> words = new HashSet<>();
+		match(ROOT, pattern, 0, normalise, new StringBuilder(), words);
+		return words;
+	}
+
+	/**
+	 * Find all words which begin with a prefix and are of a given length
+	 *
+	 * @param prefix
+	 *            - the characters the words must begin with
+	 * @param length
+	 *            - the length of the words, in characters
+	 * @return the matching words
+	 */
+	public Set<String> getWords(String prefix, int length) {
+		if (length < prefix.length()) {
+			return new HashSet<>();
+		}
+		char[] pattern = new char[length];
+		Arrays.fill(pattern, SolutionPattern.UNKNOWN_CHARACTER);
+		return match(prefix, new String(pattern), false);
+	}
+
+	/**
+	 * Find all words which begin with a prefix and match a pattern. The
+	 * pattern covers the whole word, prefix included, so it gives the length
+	 * of the words as well as any other known characters. This allows a
+	 * search which has settled on the first few characters of a solution to
+	 * look up only the words it could still become.
+	 *
+	 * @param prefix
+	 *            - the characters the words must begin with
+	 * @param pattern
+	 *            - the pattern to match, e.g. "?a??e"
+	 * @param normalise
+	 *            - <code>true</code> to ignore case and any spaces or hyphens,
+	 *            as with <code>match(pattern, normalise)</code>
+	 * @return the matching words, or none if the prefix doesn't fit the
+	 *         pattern
+	 */
+	public Set<String> match(String prefix, String pattern, boolean normalise) {
+		if (normalise) {
+			prefix = WordUtils.removeSpacesAndHyphens(prefix).toLowerCase();
+			pattern = WordUtils.removeSpacesAndHyphens(pattern).toLowerCase();
+		}
+		if (prefix.length() > pattern.length()) {
+			return new HashSet<>();
+		}
+
+		// The prefix is just more known characters of the pattern
+		char[] known = pattern.toCharArray();
+		for (int i = 0; i < prefix.length(); i++) {
+			char c = prefix.charAt(i);
+			if (known[i] != SolutionPattern.UNKNOWN_CHARACTER && known[i] != c) {
+				return new HashSet<>();
+			}
+			known[i] = c;
+		}
+		Set<String> words = new HashSet<>();
+		match(ROOT, new String(known), 0, normalise, new StringBuilder(),
+				words);
+		return words;
+	}
+
+	/**
+	 * Find all words which use exactly the given characters, in any order
+	 *
+	 * @param characters
+	 *            - the characters the words must be made of
+	 * @return the matching words, in order
+	 */
+	public List<String> getAnagrams(String characters) {
+		// Count each different character, in order so they can be compared
+		// with the (also sorted) labels of each node's edges
+		char[] chars = characters.toCharArray();
+		Arrays.sort(chars);
+		char[] distinct = new char[chars.length];
+		int[] counts = new int[chars.length];
+		int n = 0;
+		for (int i = 0; i < chars.length; i++) {
+			if (i == 0 || chars[i] != chars[i - 1]) {
+				distinct[n++] = chars[i];
+			}
+			counts[n - 1]++;
+		}
+
+		List<String> words = new ArrayList<>();
+		anagrams(ROOT, distinct, counts, n, chars.length, new StringBuilder(
+				chars.length), words);
+		return words;
+	}
+
+	/**
+	 * Find the words continuing from a node which use exactly the characters
+	 * which are left
+	 *
+	 * @param node
+	 *            - the node reached so far
+	 * @param distinct
+	 *            - each different character, sorted
+	 * @param counts
+	 *            - how many of each character are left
+	 * @param n
+	 *            - the number of different characters
+	 * @param remaining
+	 *            - the number of characters still to use
+	 * @param word
+	 *            - the characters of the word so far
+	 * @param words
+	 *            - the matching words are added to this
+	 */
+	private void anagrams(int node, char[] distinct, int[] counts, int n,
+			int remaining, StringBuilder word, List<String> words) {
+		// Give up if no word from here uses the right number of characters
+		if (!fits(lengths[node], remaining)) {
+			return;
+		}
+		if (remaining == 0) {
+			words.add(word.toString());
+			return;
+		}
+		// Both are sorted, so step through the edges and characters together
+		int edge = firstEdge[node];
+		int end = firstEdge[node + 1];
+		int i = 0;
+		while (edge < end && i < n) {
+			char c = labels[edge];
+			if (c < distinct[i]) {
+				edge++;
+			} else if (c > distinct[i]) {
+				i++;
+			} else {
+				if (counts[i] > 0) {
+					counts[i]--;
+					word.append(c);
+					anagrams(targets[edge], distinct, counts, n,
+							remaining - 1, word, words);
+					word.setLength(word.length() - 1);
+					counts[i]++;
+				}
+				edge++;
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Find the words continuing from a node which match the rest of a pattern
+	 *
+	 * @param node
+	 *            - the node reached so far
+	 * @param pattern
+	 *            - the pattern to match
+	 * @param position
+	 *            - how much of the pattern has been matched so far
+	 * @param normalise
+	 *            - whether to ignore spaces, hyphens and case
+	 * @param word
+	 *            - the characters of the word so far
+	 * @param words
+	 *            - the matching words are added to this
+	 */
+	private void match(int node, String pattern, int position,
+			boolean normalise, StringBuilder word, Set<String> words) {
+		int remaining = pattern.length() - position;
+		// Give up if no word from here is the right length
+		if (!fits(normalise ? letters[node] : lengths[node], remaining)) {
+			return;
+		}
+		if (remaining == 0 && isWord(node)) {
+			words.add(word.toString());
+		}
+
+		char wanted = remaining > 0 ? pattern.charAt(position)
+				: SolutionPattern.UNKNOWN_CHARACTER;
+		for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++) {
+			char c = labels[edge];
+			int next = position;
+			if (normalise && WordUtils.isSpaceOrHyphen(c)) {
+				// Separators don't count towards the pattern
+			} else if (remaining == 0) {
+				continue;
+			} else if (wanted == SolutionPattern.UNKNOWN_CHARACTER
+					|| wanted == (normalise ? Character.toLowerCase(c) : c)) {
+				next++;
+			} else {
+				continue;
+			}
+			word.append(c);
+			match(targets[edge], pattern, next, normalise, word, words);
+			word.setLength(word.length() - 1);
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the packed shortest and longest lengths
+	 *         allow for a word of the given length
+	 */
+	private static boolean fits(int packed, int length) {
+		return length >= packed >>> 16 && length <= (packed & 0xFFFF);
+	}
+
+	/**
+	 * @return the number of nodes in the graph
+	 */
+	int getNodeCount() {
+		return lengths.length;
+	}
+
+	/**
+	 * Builds a minimal graph from sorted words, one word at a time. Only the
+	 * path of the previous word can still change, so once the next word
+	 * branches off from it, the rest of that path is replaced by any identical
+	 * nodes already in the graph (Daciuk et al.'s incremental algorithm).
+	 */
+	private static class Builder {
+		// Nodes which can no longer change, keyed by themselves so that an
+		// identical node can be found
+		private final Map<Node, Node> register = new HashMap<>();
+		// The nodes along the path of the previous word
+		private final List<Node> path = new ArrayList<>();
+
+		/**
+		 * Build the graph for some words
+		 *
+		 * @param sortedWords
+		 *            - the words, which must be in sorted order
+		 * @return the graph
+		 */
+		private WordGraph build(String[] sortedWords) {
+			Node root = new Node();
+			path.add(root);
+			String previous = "";
+			for (String word : sortedWords) {
+				int compare = word.compareTo(previous);
+				if (compare == 0 && !previous.isEmpty()) {
+					// Duplicate
+					continue;
+				}
+				if (compare < 0) {
+					throw new IllegalArgumentException("\"" + word
+							+ "\" is out of order.");
+				}
+				int common = 0;
+				while (common < word.length() && common < previous.length()
+						&& word.charAt(common) == previous.charAt(common)) {
+					common++;
+				}
+				minimise(common);
+				// Add the rest of the word
+				Node node = path.get(common);
+				for (int i = common; i < word.length(); i++) {
+					Node child = new Node();
+					node.add(word.charAt(i), child);
+					path.add(child);
+					node = child;
+				}
+				node.terminal = true;
+				previous = word;
+			}
+			minimise(0);
+			return flatten(root);
+		}
+
+		/**
+		 * Replace the nodes of the previous word's path below the given depth
+		 * with identical nodes, or register them if there aren't any
+		 *
+		 * @param depth
+		 *            - the depth of the last node to leave alone
+		 */
+		private void minimise(int depth) {
+			for (int i = path.size() - 1; i > depth; i--) {
+				Node child = path.remove(i);
+				Node registered = register.get(child);
+				if (registered == null) {
+					register.put(child, child);
+				} else {
+					path.get(i - 1).replaceLast(registered);
+				}
+			}
+		}
+
+		/**
+		 * List the nodes reachable from a node, with every node after all of
+		 * those it leads to
+		 *
+		 * @param node
+		 *            - the node to start from
+		 * @param visited
+		 *            - the nodes which have already been listed
+		 * @param sorted
+		 *            - the nodes are added to this
+		 */
+		private static void sort(Node node, Set<Node> visited, List<Node> sorted) {
+			if (!visited.add(node)) {
+				return;
+			}
+			for (int e = 0; e < node.size; e++) {
+				sort(node.children[e], visited, sorted);
+			}
+			sorted.add(node);
+		}
+
+		/**
+		 * Number the nodes and copy them into arrays
+		 *
+		 * @param root
+		 *            - the root of the graph
+		 * @return the graph
+		 */
+		private WordGraph flatten(Node root) {
+			// Number the nodes so that every node comes before those it leads
+			// to, with the root as 0
+			List<Node> nodes = new ArrayList<>(register.size() + 1);
+			sort(root, Collections
+					.newSetFromMap(new IdentityHashMap<Node, Boolean>()), nodes);
+			Collections.reverse(nodes);
+			Map<Node, Integer> numbers = new IdentityHashMap<>();
+			int edgeCount = 0;
+			for (Node node : nodes) {
+				numbers.put(node, numbers.size());
+				edgeCount += node.size;
+			}
+
+			int[] firstEdge = new int[nodes.size() + 1];
+			char[] labels = new char[edgeCount];
+			int[] targets = new int[edgeCount];
+			int edge = 0;
+			for (int n = 0; n < nodes.size(); n++) {
+				Node node = nodes.get(n);
+				firstEdge[n] = edge;
+				for (int e = 0; e < node.size; e++) {
+					labels[edge] = node.labels[e];
+					targets[edge] = numbers.get(node.children[e]);
+					edge++;
+				}
+			}
+			firstEdge[nodes.size()] = edge;
+
+			// Nodes are numbered before those they lead to, so work
+			// backwards to find the lengths of the words from each node
+			int[] lengths = new int[nodes.size()];
+			int[] letters = new int[nodes.size()];
+			for (int n = nodes.size() - 1; n >= 0; n--) {
+				Node node = nodes.get(n);
+				int shortest = node.terminal ? 0 : Integer.MAX_VALUE;
+				int longest = 0;
+				int fewest = shortest;
+				int most = 0;
+				for (int e = firstEdge[n]; e < firstEdge[n + 1]; e++) {
+					int child = targets[e];
+					int letter = WordUtils.isSpaceOrHyphen(labels[e]) ? 0 : 1;
+					shortest = Math.min(shortest, (lengths[child] >>> 16) + 1);
+					longest = Math.max(longest, (lengths[child] & 0xFFFF) + 1);
+					fewest = Math.min(fewest, (letters[child] >>> 16) + letter);
+					most = Math.max(most, (letters[child] & 0xFFFF) + letter);
+				}
+				lengths[n] = shortest << 16 | longest;
+				letters[n] = fewest << 16 | most;
+			}
+			return new WordGraph(firstEdge, labels, targets, lengths, letters);
+		}
+	}
+
+	/**
+	 * A node of the graph while it's being built
+	 */
+	private static class Node {
+		private char[] labels = new char[2];
+		private Node[] children = new Node[2];
+		private int size;
+		private boolean terminal;
+
+		/**
+		 * Add an edge, which must come after all of the existing ones
+		 */
+		private void add(char label, Node child) {
+			if (size == labels.length) {
+				labels = Arrays.copyOf(labels, size * 2);
+				children = Arrays.copyOf(children, size * 2);
+			}
+			labels[size] = label;
+			children[size] = child;
+			size++;
+		}
+
+		/**
+		 * Point the last edge at a different (identical) node
+		 */
+		private void replaceLast(Node child) {
+			children[size - 1] = child;
+		}
+
+		/**
+		 * Two nodes are identical if they end words in the same way and have
+		 * the same edges, leading to the same (already registered) nodes
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Node)) {
+				return false;
+			}
+			Node other = (Node) obj;
+			if (terminal != other.terminal || size != other.size) {
+				return false;
+			}
+			for (int i = 0; i < size; i++) {
+				if (labels[i] != other.labels[i]
+						|| children[i] != other.children[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = terminal ? 1 : 0;
+			for (int i = 0; i < size; i++) {
+				result = 31 * result + labels[i];
+				result = 31 * result + System.identityHashCode(children[i]);
+			}
+			return result;
+		}
+	}
+
+} // End of class WordGraph
@@ -0,0 +1,54 @@
+package uk.ac.hud.cryptic.servlet;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import uk.ac.hud.cryptic.config.Settings;
+import uk.ac.hud.cryptic.core.ResultCache;
+import uk.ac.hud.cryptic.core.SolverExecutor;
+import uk.ac.hud.cryptic.resource.Abbreviations;
+import uk.ac.hud.cryptic.resource.Categoriser;
+import uk.ac.hud.cryptic.resource.Dictionary;
+import uk.ac.hud.cryptic.resource.HomophoneDictionary;
+import uk.ac.hud.cryptic.resource.Thesaurus;
+
+/**
+ * Sets up and takes down what is shared by every servlet of the application.
+ * This is done here, once for the whole application, rather than by each
+ * servlet, as taking down the shared solver executor along with one servlet
+ * would discard work which still belongs to the others.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+@WebListener
+public class ApplicationListener implements ServletContextListener {
+
+	/**
+	 * Initialise resources when the application starts rather than during the
+	 * first clue call to the service
+	 */
+	@Override
+	public void contextInitialized(ServletContextEvent event) {
+		Settings settings = Settings.getInstance();
+		settings.setServletContext(event.getServletContext());
+
+		Dictionary.getInstance();
+		Thesaurus.getInstance();
+		Categoriser.getInstance();
+		HomophoneDictionary.getInstance();
+		Abbreviations.getInstance();
+		// Nothing solved before the resources were loaded can be trusted
+		ResultCache.getInstance().invalidateAll();
+	}
+
+	/**
+	 * Stop the shared solver threads when the application is taken down
+	 */
+	@Override
+	public void contextDestroyed(ServletContextEvent event) {
+		SolverExecutor.shutdownInstance();
+	}
+
+} // End of class ApplicationListener
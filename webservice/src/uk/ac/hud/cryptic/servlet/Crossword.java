@@ -0,0 +1,195 @@
+package uk.ac.hud.cryptic.servlet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import uk.ac.hud.cryptic.config.Settings;
+import uk.ac.hud.cryptic.core.Grid;
+import uk.ac.hud.cryptic.core.Grid.Entry;
+import uk.ac.hud.cryptic.core.GridSolver;
+import uk.ac.hud.cryptic.core.SolutionCollection;
+import uk.ac.hud.cryptic.util.XMLBuilder;
+
+/**
+ * This servlet solves a whole crossword at once. The grid and all of its clues
+ * are posted to this resource, and the grid is returned with as many of the
+ * answers filled in as could be found, along with the state of each clue.
+ *
+ * The "grid" parameter holds one row of the grid per line, with '#' for a
+ * block, '?' or '.' for an empty cell and a letter for a known cell. The
+ * "clues" parameter holds one clue per line, starting with its number and
+ * direction and optionally ending with its enumeration, e.g.
+ * "1a Fruit found in grape, arrested (4)" or "2 down Pale fish (4,3)".
+ * Responses are returned as either XML (default) or JSON depending upon the
+ * client's request.
+ *
+ * Solving a grid can take as long as solving each of its clues in turn, so,
+ * as with the solver servlet, the request is handed over to the solver
+ * executor rather than holding on to the servlet container's thread.
+ *
+ * @author Stuart Leader
+ * @version 0.2
+ */
+@WebServlet(value = "/crossword", asyncSupported = true)
+public class Crossword extends Servlet {
+	// Generated Serial ID
+	private static final long serialVersionUID = 4127715466375530211L;
+	// Milliseconds a request may take, unless configured otherwise
+	private static final long DEFAULT_ASYNC_TIMEOUT = 600000;
+	// A line of the clues parameter
+	private static final Pattern CLUE = Pattern.compile(
+			"(\\d+)\\s*(a|ac|across|d|dn|down)\\b[.:]?\\s*(.+?)"
+					+ "(?:\\s*\\(([0-9,\\- ]+)\\))?", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Default Constructor
+	 */
+	public Crossword() {
+		super();
+	}
+
+	/**
+	 * Solve the posted grid and clues
+	 *
+	 * @param request
+	 *            HTTP request information
+	 * @param response
+	 *            HTTP response information
+	 * @throws ServletException
+	 * @throws IOException
+	 */
+	@Override
+	public void doPost(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		boolean json = isJSONRequest(request);
+		String gridString = request.getParameter("grid");
+		String cluesString = request.getParameter("clues");
+
+		List<String> errors = new ArrayList<>();
+		GridSolver solver = null;
+		if (!isPresent(gridString)) {
+			errors.add("Please enter a grid to solve.");
+		} else if (!isPresent(cluesString)) {
+			errors.add("Please enter the clues of the grid.");
+		} else {
+			try {
+				solver = new GridSolver(Grid.parse(gridString));
+				addClues(solver, cluesString, errors);
+			} catch (IllegalArgumentException e) {
+				errors.add(e.getMessage());
+			}
+		}
+
+		// Send errors and cancel the current request if required
+		if (!errors.isEmpty()) {
+			XMLBuilder builder = new XMLBuilder();
+			builder.addErrors(errors.toArray(new String[errors.size()]));
+			sendError(response, builder.toString(), json,
+					HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+
+		// Solve the grid, the response is sent once it's done
+		new GridSolve(request, response, solver, json).start();
+	}
+
+	/**
+	 * Read the clues, one per line, and pass them on to the solver
+	 *
+	 * @param solver
+	 *            the solver for the grid
+	 * @param cluesString
+	 *            the clues, as posted
+	 * @param errors
+	 *            any problems with the clues are added to this
+	 */
+	private void addClues(GridSolver solver, String cluesString,
+			List<String> errors) {
+		for (String line : cluesString.split("\\r?\\n")) {
+			line = line.trim();
+			if (line.isEmpty()) {
+				continue;
+			}
+			Matcher m = CLUE.matcher(line);
+			if (!m.matches()) {
+				errors.add("Unable to read the clue \"" + line + "\".");
+				continue;
+			}
+			String id = m.group(1) + m.group(2).substring(0, 1).toLowerCase();
+			String enumeration = m.group(4) == null ? null : m.group(4)
+					.replace(" ", "");
+			try {
+				solver.addClue(id, m.group(3), enumeration);
+			} catch (IllegalArgumentException e) {
+				errors.add(e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Solve the grid, returning the filled in grid and the state of each clue
+	 * as a well formated XML String
+	 *
+	 * @param solver
+	 *            the solver for the grid, with the clues added
+	 * @return XML String of results
+	 */
+	private String solveGrid(GridSolver solver) {
+		// Get the time before the solving process
+		long startTime = System.currentTimeMillis();
+		solver.solve();
+		long duration = System.currentTimeMillis() - startTime;
+
+		XMLBuilder xmlBuilder = new XMLBuilder(solver.getGrid().getRows(),
+				duration);
+		for (Entry entry : solver.getClueEntries()) {
+			SolutionCollection solutions = solver.getSolutions(entry);
+			xmlBuilder.addEntry(entry.getId(), solver.getClue(entry), solver
+					.getPattern(entry).toString(), solver.getAnswer(entry),
+					solutions == null ? 0 : solutions.size());
+		}
+		return xmlBuilder.toString();
+	}
+
+	/**
+	 * Solves a grid on the solver executor, sending the filled in grid once
+	 * it's done
+	 */
+	private class GridSolve extends AsyncSolve {
+		private final GridSolver solver;
+
+		/**
+		 * Put the request into asynchronous mode
+		 * 
+		 * @param request
+		 *            HTTP request information
+		 * @param response
+		 *            HTTP response information
+		 * @param solver
+		 *            the solver for the grid, with the clues added
+		 * @param json
+		 *            should the response be in JSON (false gives XML)
+		 */
+		private GridSolve(HttpServletRequest request,
+				HttpServletResponse response, GridSolver solver, boolean json) {
+			super(request, response, json, "crossword", Settings.getInstance()
+					.getLongSetting("servlet.crosswordTimeout",
+							DEFAULT_ASYNC_TIMEOUT));
+			this.solver = solver;
+		}
+
+		@Override
+		protected String solve() {
+			return solveGrid(solver);
+		}
+	}
+
+}
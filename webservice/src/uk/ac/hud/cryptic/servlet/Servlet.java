@@ -2,7 +2,14 @@ package uk.ac.hud.cryptic.servlet;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -11,12 +18,8 @@ import javax.xml.ws.http.HTTPException;
 import org.json.JSONObject;
 import org.json.XML;
 
-import uk.ac.hud.cryptic.config.Settings;
-import uk.ac.hud.cryptic.resource.Abbreviations;
-import uk.ac.hud.cryptic.resource.Categoriser;
-import uk.ac.hud.cryptic.resource.Dictionary;
-import uk.ac.hud.cryptic.resource.HomophoneDictionary;
-import uk.ac.hud.cryptic.resource.Thesaurus;
+import uk.ac.hud.cryptic.core.SolverExecutor;
+import uk.ac.hud.cryptic.util.XMLBuilder;
 
 /**
  * The Servlet class extends the main HttpServlet class and provides some
@@ -56,6 +59,20 @@ public class Servlet extends HttpServlet {
 		return accept != null && accept.contains("json");
 	}
 
+	/**
+	 * This method returns whether or not the accept header found within the
+	 * request object is asking for a stream of Server-Sent Events, as sent by
+	 * a browser's <code>EventSource</code>.
+	 * 
+	 * @param request
+	 *            the HTTP request object
+	 * @return true if accept header contains "text/event-stream"
+	 */
+	protected boolean isEventStreamRequest(HttpServletRequest request) {
+		String accept = request.getHeader("accept");
+		return accept != null && accept.contains("text/event-stream");
+	}
+
 	/**
 	 * This method returns whether or not the given String value is non-empty
 	 * and it's not null.
@@ -120,17 +137,15 @@ public class Servlet extends HttpServlet {
 	protected void sendResponse(HttpServletResponse response, String data,
 			boolean json) {
 		try {
-			// Use HTML values for ampersands
-			data = data.replace("&", "&amp;");
-
 			// Convert to JSON if needed
 			if (json) {
-				JSONObject jobj = XML.toJSONObject(data);
 				// Indent to 3 levels
-				data = jobj.toString(3);
+				data = toJSON(data).toString(3);
 				// Set the content type to JSON
 				response.setContentType("application/json");
 			} else {
+				// Use HTML values for ampersands
+				data = data.replace("&", "&amp;");
 				// Set the content type to XML
 				response.setContentType("application/xml");
 			}
@@ -146,18 +161,285 @@ public class Servlet extends HttpServlet {
 	}
 
 	/**
-	 * Initialise resources at servlet creation rather than during the first
-	 * clue call to the service
+	 * Convert an XML response into JSON
+	 * 
+	 * @param data
+	 *            the XML data to convert
+	 * @return the equivalent JSON object
 	 */
-	@Override
-	public void init() {
-		Settings settings = Settings.getInstance();
-		settings.setServletContext(getServletConfig().getServletContext());
-
-		Dictionary.getInstance();
-		Thesaurus.getInstance();
-		Categoriser.getInstance();
-		HomophoneDictionary.getInstance();
-		Abbreviations.getInstance();
+	protected JSONObject toJSON(String data) {
+		// Use HTML values for ampersands
+		return XML.toJSONObject(data.replace("&", "&amp;"));
+	}
+
+	/**
+	 * Prepare the response to carry a stream of Server-Sent Events. Each event
+	 * is sent to the client as soon as it is written.
+	 * 
+	 * @param response
+	 *            HTTP response information
+	 */
+	protected void startEventStream(HttpServletResponse response) {
+		response.setContentType("text/event-stream");
+		response.setCharacterEncoding("UTF-8");
+		// Events must not be cached or buffered along the way
+		response.setHeader("Cache-Control", "no-cache");
+		response.setHeader("X-Accel-Buffering", "no");
+	}
+
+	/**
+	 * Send a single Server-Sent Event to the client, flushing it straight
+	 * through to the network
+	 * 
+	 * @param response
+	 *            HTTP response information, prepared by
+	 *            <code>startEventStream</code>
+	 * @param event
+	 *            the name of the event, e.g. "solutions"
+	 * @param data
+	 *            the JSON data of the event
+	 * @throws IOException
+	 *             if the client can't be written to, e.g. it has gone away
+	 */
+	protected void sendEvent(HttpServletResponse response, String event,
+			JSONObject data) throws IOException {
+		// A compact JSON object never spans more than one line
+		String message = "event: " + event + "\ndata: " + data.toString()
+				+ "\n\n";
+		OutputStream out = response.getOutputStream();
+		out.write(message.getBytes(StandardCharsets.UTF_8));
+		out.flush();
+		response.flushBuffer();
+	}
+
+	/**
+	 * Solves a request without holding on to the servlet container's thread.
+	 * The request is put into asynchronous mode and handed over to the solver
+	 * executor, leaving the container's thread free to serve other requests.
+	 * The results are sent when solving finishes, or an error is sent if the
+	 * request times out first (whichever happens first). Each servlet only
+	 * needs to provide the solving itself, and may change how the results and
+	 * errors are sent.
+	 */
+	protected abstract class AsyncSolve implements Runnable, AsyncListener {
+		// Shown when the solver is too busy to accept the request
+		private static final String BUSY_MESSAGE = "The solver is busy, please try again shortly.";
+
+		protected final AsyncContext context;
+		protected final HttpServletResponse response;
+		// Should the response be in JSON (false gives XML)
+		private final boolean json;
+		// What is being solved, e.g. "clue", for the error messages
+		private final String subject;
+		// Set once the response has been sent, or the request has failed
+		private final AtomicBoolean finished = new AtomicBoolean();
+		// Set if the request has been passed on rather than completed
+		private boolean dispatched;
+		// The task doing the solving, so it can be cancelled
+		private volatile Future<?> task;
+
+		/**
+		 * Put the request into asynchronous mode
+		 * 
+		 * @param request
+		 *            HTTP request information
+		 * @param response
+		 *            HTTP response information
+		 * @param json
+		 *            should the response be in JSON (false gives XML)
+		 * @param subject
+		 *            what is being solved, e.g. "clue"
+		 * @param timeout
+		 *            milliseconds the request may take
+		 */
+		protected AsyncSolve(HttpServletRequest request,
+				HttpServletResponse response, boolean json, String subject,
+				long timeout) {
+			this.response = response;
+			this.json = json;
+			this.subject = subject;
+			context = request.startAsync(request, response);
+			context.setTimeout(timeout);
+			context.addListener(this);
+		}
+
+		/**
+		 * Hand the request over to the solver executor
+		 */
+		protected void start() {
+			try {
+				task = SolverExecutor.getInstance().submitRequest(this);
+			} catch (RejectedExecutionException e) {
+				// The solver is overloaded -> ask the client to try later
+				fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE, BUSY_MESSAGE);
+			}
+		}
+
+		/**
+		 * Solve the request and send the results. Runs on the executor's
+		 * thread.
+		 */
+		@Override
+		public void run() {
+			try {
+				succeed(solve());
+			} catch (RejectedExecutionException e) {
+				// The solver is overloaded -> ask the client to try later
+				fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE, BUSY_MESSAGE);
+			} catch (RuntimeException e) {
+				log("Unable to solve " + describe(), e);
+				fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+						"Something went wrong while solving the " + subject
+								+ ".");
+			}
+		}
+
+		/**
+		 * Do the solving. Runs on the executor's thread.
+		 * 
+		 * @return the results, as a well formated XML String
+		 */
+		protected abstract String solve();
+
+		/**
+		 * @return a description of what is being solved, for the log
+		 */
+		protected String describe() {
+			return "the " + subject;
+		}
+
+		/**
+		 * @return <code>true</code> if the response has been sent, or the
+		 *         request has failed
+		 */
+		protected boolean isFinished() {
+			return finished.get();
+		}
+
+		/**
+		 * Send the results of solving the request, unless the response has
+		 * already finished (e.g. the request timed out)
+		 * 
+		 * @param data
+		 *            the XML results
+		 */
+		protected synchronized void succeed(String data) {
+			if (!finished.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				sendResults(data);
+			} catch (IOException | HTTPException e) {
+				// The client has gone away, nothing more can be done
+			} finally {
+				if (!dispatched) {
+					context.complete();
+				}
+			}
+		}
+
+		/**
+		 * Send an error to the client, unless the response has already
+		 * finished
+		 * 
+		 * @param status
+		 *            the HTTP status code of the error
+		 * @param message
+		 *            the error message to show
+		 */
+		protected synchronized void fail(int status, String message) {
+			if (!finished.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				sendFailure(status, message);
+			} catch (IOException | HTTPException e) {
+				// The client has gone away, nothing more can be done
+			} finally {
+				if (!dispatched) {
+					context.complete();
+				}
+			}
+		}
+
+		/**
+		 * Write the results to the response, as XML or JSON
+		 * 
+		 * @param data
+		 *            the XML results
+		 * @throws IOException
+		 *             if the client can't be written to
+		 */
+		protected void sendResults(String data) throws IOException {
+			sendResponse(response, data, json);
+		}
+
+		/**
+		 * Write an error to the response, as XML or JSON
+		 * 
+		 * @param status
+		 *            the HTTP status code of the error
+		 * @param message
+		 *            the error message to show
+		 * @throws IOException
+		 *             if the client can't be written to
+		 */
+		protected void sendFailure(int status, String message)
+				throws IOException {
+			XMLBuilder builder = new XMLBuilder();
+			builder.addError(message);
+			sendError(response, builder.toString(), json, status);
+		}
+
+		/**
+		 * Pass the request on to a page to be rendered, rather than writing
+		 * the response here
+		 * 
+		 * @param path
+		 *            the page to render the response
+		 */
+		protected void dispatch(String path) {
+			dispatched = true;
+			context.dispatch(path);
+		}
+
+		/**
+		 * Stop solving, if it's still going
+		 */
+		private void cancel() {
+			Future<?> f = task;
+			if (f != null) {
+				f.cancel(true);
+			}
+		}
+
+		/**
+		 * The request took too long, so give up and let the client know
+		 */
+		@Override
+		public void onTimeout(AsyncEvent event) throws IOException {
+			cancel();
+			fail(HttpServletResponse.SC_GATEWAY_TIMEOUT, "The " + subject
+					+ " took too long to solve, please try again.");
+		}
+
+		/**
+		 * The connection failed, so there is nobody to send the results to
+		 */
+		@Override
+		public void onError(AsyncEvent event) throws IOException {
+			cancel();
+			finished.set(true);
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) throws IOException {
+			// Nothing to do
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) throws IOException {
+			// Nothing to do
+		}
 	}
 }
@@ -3,8 +3,8 @@ package uk.ac.hud.cryptic.servlet;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.regex.Pattern;
 
 import javax.servlet.ServletException;
@@ -12,25 +12,39 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import uk.ac.hud.cryptic.config.Settings;
 import uk.ac.hud.cryptic.core.Clue;
 import uk.ac.hud.cryptic.core.Manager;
 import uk.ac.hud.cryptic.core.Solution;
 import uk.ac.hud.cryptic.core.SolutionCollection;
+import uk.ac.hud.cryptic.core.SolutionListener;
 import uk.ac.hud.cryptic.core.SolutionPattern;
 import uk.ac.hud.cryptic.util.XMLBuilder;
 
 /**
  * This class provides a servlet to provide an interface to the application.
  * Clues are solved by posting the clue and the solution pattern to this
- * resource.
+ * resource. Clients which accept "text/event-stream" are sent the solutions
+ * of each solver as soon as it finishes, rather than waiting for them all.
+ * 
+ * Some clues have thousands of potential solutions, so the response can be
+ * cut down with the optional parameters "limit" (the most solutions to
+ * return), "minConfidence" (the confidence solutions must reach) and
+ * "includeTrace" (whether to explain how each solution was found).
  * 
  * @author Luke Hackett, Stuart Leader
- * @version 0.2
+ * @version 0.3
  */
-@WebServlet("/solver")
+@WebServlet(value = "/solver", asyncSupported = true)
 public class Solver extends Servlet {
 	// Generated Serial ID
 	private static final long serialVersionUID = -7066687691201583586L;
+	// Milliseconds a request may take, unless configured otherwise
+	private static final long DEFAULT_ASYNC_TIMEOUT = 60000;
+	// The page which shows the results
+	private static final String VIEW = "/solver.jsp";
+	// The most solutions to return when the request doesn't say (0 = all)
+	private static final int DEFAULT_SOLUTION_LIMIT = 0;
 
 	/**
 	 * Default Constructor
@@ -173,9 +187,12 @@ public class Solver extends Servlet {
 	 *            The clue to be solved
 	 * @param patternString
 	 *            The solution pattern
+	 * @param filter
+	 *            Which solutions to return, and how much detail to give
 	 * @return XML String of results
 	 */
-	private String solveClue(String clueString, String patternString) {
+	private String solveClue(String clueString, String patternString,
+			ResultFilter filter) {
 		// Get the time before the solving process
 		long startTime = System.currentTimeMillis();
 
@@ -186,32 +203,105 @@ public class Solver extends Servlet {
 		// Solve the clue
 		SolutionCollection solutions = manager.distributeAndSolveClue(clue);
 
-		// Solutions aren't sorted until this is requested
-		Set<Solution> sortedSolutions = solutions.sortSolutions();
-
-		// Needed to correct the output of the solution(s)
-		final SolutionPattern pattern = clue.getPattern();
+		return toXML(clue, patternString, solutions, filter, startTime);
+	}
 
+	/**
+	 * Build the XML document describing the complete results of solving a
+	 * clue
+	 * 
+	 * @param clue
+	 *            The clue which has been solved
+	 * @param patternString
+	 *            The solution pattern as supplied
+	 * @param solutions
+	 *            The solutions to the clue
+	 * @param filter
+	 *            Which solutions to return, and how much detail to give
+	 * @param startTime
+	 *            When solving started, in ms
+	 * @return XML String of results
+	 */
+	private String toXML(Clue clue, String patternString,
+			SolutionCollection solutions, ResultFilter filter, long startTime) {
 		// Get the duration of the solving process in ms
 		long duration = System.currentTimeMillis() - startTime;
 
 		// Create a new XML Builder object
-		XMLBuilder xmlBuilder = new XMLBuilder(clueString, patternString,
+		XMLBuilder xmlBuilder = new XMLBuilder(clue.getClue(), patternString,
 				duration);
-		xmlBuilder.addKeyValue("total", String.valueOf(sortedSolutions.size()));
+		addSolutions(xmlBuilder, clue.getPattern(), solutions, filter);
+		// Some solvers may have run out of time
+		xmlBuilder.addKeyValue("partial", String.valueOf(solutions.isPartial()));
+		// The solvers aren't run for a clue which has been solved recently
+		xmlBuilder.addKeyValue("cached", String.valueOf(solutions.isCached()));
+
+		return xmlBuilder.toString();
+	}
+
+	/**
+	 * Add the solutions, best first, to an XML document
+	 * 
+	 * @param xmlBuilder
+	 *            The XML document to add to
+	 * @param pattern
+	 *            The solution pattern, needed to correct the output of the
+	 *            solution(s)
+	 * @param solutions
+	 *            The solutions to add
+	 * @param filter
+	 *            Which solutions to add, and how much detail to give
+	 */
+	private void addSolutions(XMLBuilder xmlBuilder, SolutionPattern pattern,
+			SolutionCollection solutions, ResultFilter filter) {
+		// Only the solutions being returned are sorted
+		List<Solution> topSolutions = solutions.getTopSolutions(filter.limit,
+				filter.minConfidence);
+
+		xmlBuilder.addKeyValue("total", String.valueOf(solutions.size()));
+		xmlBuilder.addKeyValue("returned", String.valueOf(topSolutions.size()));
 
 		// Add each of the solutions to the XML document
-		for (Solution s : sortedSolutions) {
+		for (Solution s : topSolutions) {
 			String solver = s.getSolverType();
 			String solution = pattern.recomposeSolution(s.getSolution());
 			String confidence = Solution.CONF_FORMATTER.format(s
 					.getConfidence());
-			List<String> trace = s.getSolutionTrace();
+			List<String> trace = filter.includeTrace ? s.getSolutionTrace()
+					: Collections.<String> emptyList();
 
 			xmlBuilder.addSolution(solver, solution, confidence, trace);
 		}
+	}
 
-		return xmlBuilder.toString();
+	/**
+	 * Read the "limit", "minConfidence" and "includeTrace" parameters of a
+	 * request. Any which are missing take their default values.
+	 * 
+	 * @param request
+	 *            HTTP request information
+	 * @return the filter, or <code>null</code> if the parameters aren't valid
+	 */
+	private ResultFilter getResultFilter(HttpServletRequest request) {
+		String limit = request.getParameter("limit");
+		String minConfidence = request.getParameter("minConfidence");
+		String includeTrace = request.getParameter("includeTrace");
+		try {
+			ResultFilter filter = new ResultFilter(
+					isPresent(limit) ? Integer.parseInt(limit) : Settings
+							.getInstance().getIntSetting("servlet.solutionLimit",
+									DEFAULT_SOLUTION_LIMIT),
+					isPresent(minConfidence) ? Double.parseDouble(minConfidence)
+							: 0,
+					!isPresent(includeTrace) || Boolean.parseBoolean(includeTrace));
+			if (filter.limit < 0 || filter.minConfidence < 0
+					|| filter.minConfidence > 100) {
+				return null;
+			}
+			return filter;
+		} catch (NumberFormatException e) {
+			return null;
+		}
 	}
 
 	/**
@@ -226,9 +316,13 @@ public class Solver extends Servlet {
 	 *            the solution format to be validated
 	 * @param pattern
 	 *            the solution pattern format to be validated
+	 * @param filter
+	 *            the limits on the solutions to return, or <code>null</code>
+	 *            if they are invalid
 	 * @return A String array of errors if errors are detected
 	 */
-	private String[] validateInputs(String clue, String solution, String pattern) {
+	private String[] validateInputs(String clue, String solution,
+			String pattern, ResultFilter filter) {
 		// List of error messages to be displayed to the client
 		Collection<String> messages = new ArrayList<>();
 
@@ -252,6 +346,11 @@ public class Solver extends Servlet {
 			messages.add("Please ensure the solution format matches the pattern format.");
 		}
 
+		// Ensure the limits on the solutions are valid
+		if (filter == null) {
+			messages.add("Please enter a valid limit and minimum confidence.");
+		}
+
 		return messages.toArray(new String[messages.size()]);
 	}
 
@@ -310,11 +409,28 @@ public class Solver extends Servlet {
 		String solution = request.getParameter("length");
 		String pattern = request.getParameter("pattern");
 
+		// Which solutions to return, and how much detail to give
+		ResultFilter filter = getResultFilter(request);
+
 		// Validate Inputs
-		String[] errors = validateInputs(clue, solution, pattern);
+		String[] errors = validateInputs(clue, solution, pattern, filter);
+
+		// Stream the results as each solver finishes, if asked to
+		if (isEventStreamRequest(request)) {
+			startEventStream(response);
 
-		// Check to see if a page needs to be rendered server-side
-		if (isAjaxRequest(request)) {
+			// Send errors and cancel the current request if required
+			if (errors.length > 0) {
+				XMLBuilder builder = new XMLBuilder();
+				builder.addErrors(errors);
+				sendEvent(response, "error", toJSON(builder.toString()));
+				return;
+			}
+
+			new ClueSolve(request, response, clue, pattern, filter,
+					Mode.EVENTS).start();
+
+		} else if (isAjaxRequest(request)) {
 			// Determine if the request is expecting a JSON return
 			boolean json = isJSONRequest(request);
 
@@ -329,11 +445,9 @@ public class Solver extends Servlet {
 				return;
 			}
 
-			// Solve the clue
-			String data = solveClue(clue, pattern);
-
-			// Send the response
-			sendResponse(response, data, json);
+			// Solve the clue, the response is sent once it's done
+			new ClueSolve(request, response, clue, pattern, filter,
+					json ? Mode.JSON : Mode.XML).start();
 
 		} else {
 			// Server-side page rendering is required
@@ -345,15 +459,191 @@ public class Solver extends Servlet {
 			if (errors.length > 0) {
 				// Validation has failed -> inform end user
 				request.setAttribute("errors", errors);
-			} else {
-				// Validation has passed -> present results
-				String data = solveClue(clue, pattern);
+				// Forward request and response onto the view
+				request.getRequestDispatcher(VIEW).forward(request, response);
+				return;
+			}
+
+			// Validation has passed -> present results once solved
+			new ClueSolve(request, response, clue, pattern, filter,
+					Mode.PAGE).start();
+		}
+	}
+
+	/**
+	 * Which of the solutions to return to the client, and how much detail to
+	 * give about each of them
+	 */
+	private static class ResultFilter {
+		// The most solutions to return, or 0 for all of them
+		private final int limit;
+		// The confidence solutions must reach to be returned
+		private final double minConfidence;
+		// Whether to explain how each solution was found
+		private final boolean includeTrace;
+
+		private ResultFilter(int limit, double minConfidence,
+				boolean includeTrace) {
+			this.limit = limit;
+			this.minConfidence = minConfidence;
+			this.includeTrace = includeTrace;
+		}
+	}
+
+	/**
+	 * The ways in which the results can be returned to the client
+	 */
+	private enum Mode {
+		// The results page, rendered server-side
+		PAGE,
+		// An XML document
+		XML,
+		// A JSON document
+		JSON,
+		// A stream of Server-Sent Events, one per solver
+		EVENTS
+	}
+
+	/**
+	 * Solves a clue on the solver executor, returning the results in the way
+	 * the client asked for them
+	 */
+	private class ClueSolve extends AsyncSolve {
+		private final HttpServletRequest request;
+		private final String clue;
+		private final String pattern;
+		private final ResultFilter filter;
+		private final Mode mode;
+
+		/**
+		 * Put the request into asynchronous mode
+		 * 
+		 * @param request
+		 *            HTTP request information
+		 * @param response
+		 *            HTTP response information
+		 * @param clue
+		 *            The clue to be solved
+		 * @param pattern
+		 *            The solution pattern
+		 * @param filter
+		 *            Which solutions to return, and how much detail to give
+		 * @param mode
+		 *            How the results should be returned
+		 */
+		private ClueSolve(HttpServletRequest request,
+				HttpServletResponse response, String clue, String pattern,
+				ResultFilter filter, Mode mode) {
+			super(request, response, mode == Mode.JSON, "clue", Settings
+					.getInstance().getLongSetting("servlet.asyncTimeout",
+							DEFAULT_ASYNC_TIMEOUT));
+			this.request = request;
+			this.clue = clue;
+			this.pattern = pattern;
+			this.filter = filter;
+			this.mode = mode;
+		}
+
+		@Override
+		protected String solve() {
+			if (mode == Mode.EVENTS) {
+				return stream();
+			}
+			return solveClue(clue, pattern, filter);
+		}
+
+		@Override
+		protected String describe() {
+			return "the clue \"" + clue + "\"";
+		}
+
+		/**
+		 * Solve the clue, sending a "solutions" event as each solver finishes.
+		 * The complete results are sent at the end, as the "done" event.
+		 * 
+		 * @return XML String of results
+		 */
+		private String stream() {
+			// Get the time before the solving process
+			long startTime = System.currentTimeMillis();
+
+			// Encapsulate the clueString in an object and solve it
+			final Clue c = new Clue(clue, pattern);
+			Manager manager = new Manager();
+
+			// Send each solver's solutions as soon as it finishes
+			SolutionListener listener = new SolutionListener() {
+				@Override
+				public void solutionsFound(String solver,
+						SolutionCollection solutions) {
+					XMLBuilder xmlBuilder = new XMLBuilder(clue, pattern);
+					xmlBuilder.addKeyValue("name", solver);
+					addSolutions(xmlBuilder, c.getPattern(), solutions,
+							filter);
+					if (!event("solutions", xmlBuilder.toString())) {
+						// Nobody to send the rest to, so stop solving
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+
+			SolutionCollection solutions = manager.distributeAndSolveClue(c,
+					listener);
+			// Don't leave the executor's thread interrupted
+			Thread.interrupted();
+			return toXML(c, pattern, solutions, filter, startTime);
+		}
+
+		/**
+		 * Send a single event, unless the response has already finished
+		 * 
+		 * @param event
+		 *            the name of the event
+		 * @param data
+		 *            the XML data of the event, sent as JSON
+		 * @return <code>true</code> if the event was sent
+		 */
+		private synchronized boolean event(String event, String data) {
+			if (isFinished()) {
+				return false;
+			}
+			try {
+				sendEvent(response, event, toJSON(data));
+				return true;
+			} catch (IOException e) {
+				// The client has gone away
+				return false;
+			}
+		}
+
+		@Override
+		protected void sendResults(String data) throws IOException {
+			if (mode == Mode.PAGE) {
+				// Forward request and response onto the view
 				request.setAttribute("results", data);
+				dispatch(VIEW);
+			} else if (mode == Mode.EVENTS) {
+				sendEvent(response, "done", toJSON(data));
+			} else {
+				super.sendResults(data);
 			}
+		}
 
-			// Forward request and response onto the view
-			request.getRequestDispatcher("solver.jsp").forward(request,
-					response);
+		@Override
+		protected void sendFailure(int status, String message)
+				throws IOException {
+			if (mode == Mode.PAGE) {
+				// Forward request and response onto the view
+				request.setAttribute("errors", new String[] { message });
+				dispatch(VIEW);
+			} else if (mode == Mode.EVENTS) {
+				// Too late to change the status of an event stream
+				XMLBuilder builder = new XMLBuilder();
+				builder.addError(message);
+				sendEvent(response, "error", toJSON(builder.toString()));
+			} else {
+				super.sendFailure(status, message);
+			}
 		}
 	}
 }
@@ -67,9 +67,8 @@ public class Acrostic extends Solver {
 				subStr += termToSearch.substring(j, j + 1);
 			}
 			Solution s = new Solution(subStr, NAME);
-			s.addToTrace(String
-					.format("Initial letters taken from clue words, starting with \"%s\", to clue word \"%s\".",
-							words[i], words[i + solutionLength - 1]));
+			s.addToTrace("Initial letters taken from clue words, starting with \"%s\", to clue word \"%s\".",
+					words[i], words[i + solutionLength - 1]);
 			solutions.add(s);
 		}
 
@@ -6,14 +6,13 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import uk.ac.hud.cryptic.core.Clue;
+import uk.ac.hud.cryptic.core.ConcurrentSolutionCollection;
 import uk.ac.hud.cryptic.core.Solution;
 import uk.ac.hud.cryptic.core.SolutionCollection;
 import uk.ac.hud.cryptic.core.SolutionPattern;
+import uk.ac.hud.cryptic.core.SolverExecutor;
 import uk.ac.hud.cryptic.resource.Thesaurus;
 import uk.ac.hud.cryptic.util.WordUtils;
 
@@ -64,8 +63,15 @@ public class Anagram extends Solver {
 		SolutionCollection anagrams = new SolutionCollection();
 		// Break the solution pattern down into the separate words
 		String[] wordPatterns = pattern.splitPattern();
+		// Count up the letters available. Any other characters can't be used
+		// by a dictionary word anyway
+		int[] counts = WordUtils.getLetterCounts(input);
+		int available = 0;
+		for (int count : counts) {
+			available += count;
+		}
 		// Go find anagrams!
-		anagram("", input, wordPatterns, anagrams);
+		anagram("", counts, available, wordPatterns, 0, anagrams);
 		return anagrams;
 	}
 
@@ -73,49 +79,73 @@ public class Anagram extends Solver {
 	 * Beware of recursive algorithms, "cos they play with your mind" - Leanne
 	 * Butcher, 2014.
 	 * 
+	 * Each call finds the possible words for one word of the solution, taking
+	 * their characters out of the pool before moving on to the next word. The
+	 * last word has to use up all of the remaining characters, so rather than
+	 * trying every word of the right length, it is looked up directly in the
+	 * dictionary's anagram index.
+	 * 
 	 * @param str
-	 *            - an empty String please, which will act as the starting point
-	 *            to anagram creation
-	 * @param characters
-	 *            - the pool of characters available to use, as a
-	 *            <code>String</code>
+	 *            - the words found so far, which start off each solution
+	 * @param counts
+	 *            - the number of each letter available to use. Restored to how
+	 *            it was given before returning
+	 * @param available
+	 *            - the total number of characters available
 	 * @param patterns
 	 *            - an array of the solution patterns for each word of the
 	 *            solution
+	 * @param index
+	 *            - the word of the solution to find
 	 * @param anagrams
+	 *            - the solutions found
 	 */
-	private void anagram(String str, String characters, String[] patterns,
-			SolutionCollection anagrams) {
+	private void anagram(String str, int[] counts, int available,
+			String[] patterns, int index, SolutionCollection anagrams) {
+		// Out of time, so stop searching
+		if (isCancelled()) {
+			return;
+		}
+
 		// The base case. If there are no more patterns left, the last word of
 		// the solution has been found
-		if (patterns.length == 0) {
+		if (index == patterns.length) {
 			// If you're here, a potential solution has been found
 			anagrams.add(new Solution(str, NAME));
-		} else {
-			// Get all words matching the specified pattern
-			Collection<String> words = DICTIONARY.getMatchingWords(patterns[0]);
-			// Remove the current pattern from the front of the remaining
-			// word patterns
-			String[] remainingPatterns = Arrays.copyOfRange(patterns, 1,
-					patterns.length);
-			// For each matching word
-			for (String word : words) {
-				// Check if the characters are available to create this word
-				if (WordUtils.hasCharacters(word, characters)) {
-					// If so, remove these from the pool of available chars for
-					// the next word - only if needed
-					String remainingCharacters = characters;
-					if (remainingPatterns.length > 0) {
-						for (char c : word.toCharArray()) {
-							remainingCharacters = remainingCharacters
-									.replaceFirst(String.valueOf(c), "");
-						}
-					}
-					// Round and around we go! Anyone else getting dizzy?
-					anagram(str + word, remainingCharacters, remainingPatterns,
-							anagrams);
+			return;
+		}
+
+		// Give up if the remaining words need more characters than are left
+		int needed = 0;
+		for (int i = index; i < patterns.length; i++) {
+			needed += patterns[i].length();
+		}
+		if (needed > available) {
+			return;
+		}
+
+		String pattern = patterns[index];
+		if (index == patterns.length - 1 && needed == available) {
+			// The last word must be an anagram of the remaining characters
+			String remaining = WordUtils.toLetters(counts);
+			for (String word : DICTIONARY.getAnagrams(remaining)) {
+				if (SolutionPattern.match(pattern, word)) {
+					anagrams.add(new Solution(str + word, NAME));
 				}
 			}
+			return;
+		}
+
+		// Try each word matching the specified pattern
+		for (String word : DICTIONARY.getMatchingWords(pattern)) {
+			// Check the characters are available to create this word, and if
+			// so, remove them from the pool for the next word
+			if (WordUtils.takeLetters(counts, word)) {
+				// Round and around we go! Anyone else getting dizzy?
+				anagram(str + word, counts, available - word.length(),
+						patterns, index + 1, anagrams);
+				WordUtils.returnLetters(counts, word);
+			}
 		}
 	}
 
@@ -261,45 +291,37 @@ public class Anagram extends Solver {
 		// Only proceed if potential fodder has been found
 		if (fodder != null && !fodder.isEmpty()) {
 
-			// This will hold the returned objects from the threads
-			Collection<Future<SolutionCollection>> futures = new ArrayList<>();
-			// Create a thread pool to execute the solvers
-			ExecutorService executor = Executors.newFixedThreadPool(fodder
-					.size());
+			// Each search adds its solutions to this as it finds them
+			final SolutionCollection found = new ConcurrentSolutionCollection();
+			// This will hold one search per fodder
+			Collection<Callable<Void>> tasks = new ArrayList<>();
 
-			// One to a thread
+			// One task per fodder, run on the shared solver executor
 			for (final String characters : fodder) {
 				// Java 1.8 can make this neater with lambda expressions ;)
-				Future<SolutionCollection> future = executor
-						.submit(new Callable<SolutionCollection>() {
-							@Override
-							public SolutionCollection call() throws Exception {
-								SolutionCollection solutions = anagram(
-										characters, pattern);
-								for (Solution s : solutions) {
-									s.addToTrace(String
-											.format("Word is an anagram of the clue text \"%s\".",
-													characters));
-								}
-								return solutions;
-							}
-						});
-				// Add to the list of all futures to later process
-				futures.add(future);
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						for (Solution s : anagram(characters, pattern)) {
+							s.addToTrace("Word is an anagram of the clue text \"%s\".",
+									characters);
+							found.add(s);
+						}
+						return null;
+					}
+				});
 			}
 
-			// All finished
-			executor.shutdown();
-
-			// Get the actual solutions from the futures
-			for (Future<SolutionCollection> future : futures) {
-				try {
-					// Add to the master list of potential solutions
-					solutions.addAll(future.get());
-				} catch (InterruptedException | ExecutionException e) {
-					e.printStackTrace();
-				}
+			// Wait for the searches to finish
+			try {
+				SolverExecutor.getInstance().invokeNested(tasks);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
 			}
+			// Add to the master list of potential solutions
+			solutions.addAll(found);
 		}
 	}
 
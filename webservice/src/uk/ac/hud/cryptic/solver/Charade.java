@@ -3,7 +3,6 @@ package uk.ac.hud.cryptic.solver;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,6 +23,7 @@ import uk.ac.hud.cryptic.core.Clue;
 import uk.ac.hud.cryptic.core.Solution;
 import uk.ac.hud.cryptic.core.SolutionCollection;
 import uk.ac.hud.cryptic.core.SolutionPattern;
+import uk.ac.hud.cryptic.core.Trace;
 import uk.ac.hud.cryptic.resource.Abbreviations;
 import uk.ac.hud.cryptic.resource.Thesaurus;
 import uk.ac.hud.cryptic.util.Util;
@@ -109,8 +109,8 @@ public class Charade extends Solver {
 
 		// Now get combinations of first / last letters of the clue which could
 		// be used to construct a solution
-		Map<String, Set<String>> substrings = constructSubstrings(clue
-				.split(WordUtils.REGEX_WHITESPACE));
+		Map<String, Set<String>> substrings = constructSubstrings(WordUtils
+				.getWords(clue));
 
 		// Get synonyms of each clue word, which may also be used
 		Map<String, Set<String>> synonyms = THESAURUS.getSynonymsForClue(clue);
@@ -186,10 +186,14 @@ public class Charade extends Solver {
 			Set<Set<String>> powerSet = generatePowerSet(clue);
 			// For each of these, find potential solutions
 			for (Set<String> combination : powerSet) {
+				// Out of time, so stop searching
+				if (isCancelled()) {
+					break;
+				}
 				// Entry to the recursive method
 				generateSolutions("", components,
 						combination.toArray(new String[combination.size()]),
-						pattern, sc, new ArrayList<String>());
+						pattern, sc, Trace.EMPTY);
 			}
 		} catch (IllegalArgumentException e) {
 			System.err.println("Too many clue words to look for charades.");
@@ -216,19 +220,23 @@ public class Charade extends Solver {
 	 * @param sc
 	 *            - potential solutions are added to the collection
 	 * @param trace
-	 *            - a list of trace messages which are generated as the solution
-	 *            is constructed
+	 *            - the trace messages which are generated as the solution is
+	 *            constructed. Each level adds to this without copying it
 	 */
 	private void generateSolutions(String string,
 			Map<MapType, Map<String, Set<String>>> components,
 			String[] clueWords, SolutionPattern pattern, SolutionCollection sc,
-			List<String> trace) {
+			Trace trace) {
 
-		// Integrate dictionary checking to check the generated String's
-		// prefix
-		if (!pattern.matchPrefix(string)) { // TODO Makes it super slow? ||
-											// !DICTIONARY.prefixMatch(string))
-											// {
+		// Out of time, so stop searching
+		if (isCancelled()) {
+			return;
+		}
+
+		// Stop if the generated String can't be the beginning of a dictionary
+		// word (or words) fitting the pattern. Any spaces or hyphens from
+		// multi-word components are skipped, so only the letters are checked
+		if (!DICTIONARY.prefixMatch(string, pattern)) {
 			return;
 		}
 
@@ -240,12 +248,9 @@ public class Charade extends Solver {
 			// If the generated solution matches with the clue's solution
 			// pattern
 			if (pattern.match(string)) {
-				// Create a new Solution object and add the trace messages which
+				// Create a new Solution object with the trace messages which
 				// have been generated
-				Solution s = new Solution(string, NAME);
-				for (String entry : trace) {
-					s.addToTrace(entry);
-				}
+				Solution s = new Solution(string, NAME, trace);
 				s.addToTrace("The above components have been put together to form the proposed solution.");
 				sc.add(s);
 			}
@@ -269,17 +274,17 @@ public class Charade extends Solver {
 					// For each of these components
 					for (String match : matches) {
 						// Add a trace message saying how it has been used
-						List<String> newTrace = new ArrayList<>(trace);
-						String message = "\"" + match + "\" ";
+						String relation = "";
 						if (map.getKey() == MapType.ABBREVIATION) {
-							message += "is an abbreviation";
+							relation = "is an abbreviation";
 						} else if (map.getKey() == MapType.SUBSTRING) {
-							message += "has been taken as a substring";
+							relation = "has been taken as a substring";
 						} else if (map.getKey() == MapType.SYNONYM) {
-							message += "is a synonym";
+							relation = "is a synonym";
 						}
-						message += " of the clue word \"" + currentWord + "\".";
-						newTrace.add(message);
+						Trace newTrace = trace.append(
+								"\"%s\" %s of the clue word \"%s\".", match,
+								relation, currentWord);
 
 						// Round and around we go! Anyone else getting dizzy?
 						generateSolutions(string + match, components,
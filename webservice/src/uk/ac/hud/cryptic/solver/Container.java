@@ -177,6 +177,10 @@ public class Container extends Solver {
 			for (Entry<String, Set<String>> innerEntry : synonyms.entrySet()) {
 				if (!(outerEntry == innerEntry)) {
 					for (String outerString : outerEntry.getValue()) {
+						// Out of time, so stop searching
+						if (isCancelled()) {
+							return solutions;
+						}
 						for (String innerString : innerEntry.getValue()) {
 							containWord(solutions, outerEntry.getKey(),
 									outerString, innerEntry.getKey(),
@@ -221,9 +225,8 @@ public class Container extends Solver {
 						Solution s = new Solution(sb.toString(), NAME);
 						s.addToTrace(generateTrace(secondClue, secondWord));
 						s.addToTrace(generateTrace(firstClue, firstWord));
-						s.addToTrace(String
-								.format("Insert the word \"%s\" into the middle of \"%s\".",
-										firstWord, secondWord));
+						s.addToTrace("Insert the word \"%s\" into the middle of \"%s\".",
+								firstWord, secondWord);
 						solutions.add(s);
 					}
 				}
@@ -237,9 +240,8 @@ public class Container extends Solver {
 						Solution s = new Solution(sb.toString(), NAME);
 						s.addToTrace(generateTrace(firstClue, firstWord));
 						s.addToTrace(generateTrace(secondClue, secondWord));
-						s.addToTrace(String
-								.format("Insert the word \"%s\" into the middle of \"%s\".",
-										secondWord, firstWord));
+						s.addToTrace("Insert the word \"%s\" into the middle of \"%s\".",
+								secondWord, firstWord);
 						solutions.add(s);
 					}
 				}
@@ -116,10 +116,9 @@ public class DoubleDefinition extends Solver {
 								s.setConfidence(Confidence.DOUBLE_DEFINITION_INITIAL);
 
 								// Compile a detailed trace message
-								s.addToTrace(String
-										.format("The words of the clue, \"%s\" and \"%s\" share the synonym \"%s\".",
-												e1.getKey(), e2.getKey(),
-												synonym1));
+								s.addToTrace("The words of the clue, \"%s\" and \"%s\" share the synonym \"%s\".",
+										e1.getKey(), e2.getKey(),
+										synonym1);
 
 								// If both maps are equal, i.e. first and
 								// first-level synonyms,
@@ -9,6 +9,7 @@ import uk.ac.hud.cryptic.core.SolutionCollection;
 import uk.ac.hud.cryptic.core.SolutionPattern;
 import uk.ac.hud.cryptic.resource.Thesaurus;
 import uk.ac.hud.cryptic.util.Confidence;
+import uk.ac.hud.cryptic.util.WordUtils;
 
 /**
  * Hidden solver algorithm
@@ -57,7 +58,7 @@ public class Hidden extends Solver {
 		String clue = c.getClueNoPunctuation(true);
 		// Reverse the clue as searching will still be from left-to-right
 		if (reverse) {
-			clue = new StringBuilder(clue).reverse().toString();
+			clue = WordUtils.reverseWord(clue);
 		}
 
 		int totalLength = pattern.getTotalLength();
@@ -68,19 +69,20 @@ public class Hidden extends Solver {
 		// Generate substrings
 		int index;
 		for (index = 0; index <= limit; index++) {
-			Solution s = new Solution(
-					clue.substring(index, index + totalLength), NAME);
-			s.addToTrace("Solution hidden in the clue in a "
-					+ (reverse ? "reverse" : "forward") + " direction.");
+			String hidden = clue.substring(index, index + totalLength);
+			// Only keep those which match the provided pattern
+			if (!pattern.match(hidden)) {
+				continue;
+			}
+			Solution s = new Solution(hidden, NAME);
+			s.addToTrace("Solution hidden in the clue in a %s direction.",
+					reverse ? "reverse" : "forward");
 			solutions.add(s);
 		}
 
 		// Remove risk of matching original words
 		solutions.removeAllStrings(Arrays.asList(c.getClueWords()));
 
-		// Remove solutions which don't match the provided pattern
-		pattern.filterSolutions(solutions);
-
 		// Filter out invalid words
 		DICTIONARY.dictionaryFilter(solutions, pattern);
 
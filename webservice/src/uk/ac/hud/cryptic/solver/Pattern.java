@@ -73,9 +73,8 @@ public class Pattern extends Solver {
 				}
 			} while (word == null);
 
-			s.addToTrace(String
-					.format("Every other character taken from the clue, starting with the clue word \"%s\".",
-							word));
+			s.addToTrace("Every other character taken from the clue, starting with the clue word \"%s\".",
+					word);
 			solutions.add(s);
 		}
 
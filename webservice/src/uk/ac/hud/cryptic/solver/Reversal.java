@@ -82,13 +82,13 @@ public class Reversal extends Solver {
 					// Create a new solution
 					Solution solution = new Solution(reversedWord, NAME);
 					// Add the trace messages
-					solution.addToTrace(String.format(
-							"Using \"%s\" as the word play indicator.", fodder));
-					solution.addToTrace(String.format(
-							"\"%s\" is synonym of \"%s\".", synonym, fodder));
-					solution.addToTrace(String.format(
+					solution.addToTrace(
+							"Using \"%s\" as the word play indicator.", fodder);
+					solution.addToTrace(
+							"\"%s\" is synonym of \"%s\".", synonym, fodder);
+					solution.addToTrace(
 							"\"%s\" can be reversed to get \"%s\".", synonym,
-							reversedWord));
+							reversedWord);
 					collection.add(solution);
 				}
 			}
@@ -70,6 +70,18 @@ public abstract class Solver implements Callable<SolutionCollection> {
 	 */
 	public abstract SolutionCollection solve(Clue c);
 
+	/**
+	 * Determine if the solver has been cancelled, which happens when the time
+	 * allowed for solving the clue has run out. Long running searches should
+	 * check this regularly and give up, returning whatever they have found, so
+	 * that the thread is freed up for other clues.
+	 * 
+	 * @return <code>true</code> if the solver should stop
+	 */
+	protected static boolean isCancelled() {
+		return Thread.currentThread().isInterrupted();
+	}
+
 	/**
 	 * Get a String representation of this solver. This should also correspond
 	 * with the database name for this type of clue. e.g. "hidden" or "&lit"
@@ -329,18 +329,16 @@ public class Spoonerism extends Solver {
 		}
 
 		if (solution != null) {
-			solution.addToTrace(String.format(
+			solution.addToTrace(
 					"\"%s\" is a synonym of the clue word \"%s\".",
-					firstSynonym, originalFirst));
-			solution.addToTrace(String.format(
+					firstSynonym, originalFirst);
+			solution.addToTrace(
 					"\"%s\" is a synonym of the clue word \"%s\".",
-					secondSynonym, originalSecond));
-			solution.addToTrace(String
-					.format("Swap their initial letters to form the words \"%s\" and \"%s\".",
-							firstWord, secondWord));
-			solution.addToTrace(String
-					.format("Combine these elements to arrive at the final solution, \"%s\".",
-							solution.getSolution()));
+					secondSynonym, originalSecond);
+			solution.addToTrace("Swap their initial letters to form the words \"%s\" and \"%s\".",
+					firstWord, secondWord);
+			solution.addToTrace("Combine these elements to arrive at the final solution, \"%s\".",
+					solution.getSolution());
 			solutions.add(solution);
 		}
 	}
@@ -3,7 +3,14 @@ package uk.ac.hud.cryptic.util;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 public class Util {
 
@@ -91,4 +98,39 @@ public class Util {
 		}
 	}
 
+	/**
+	 * Create an immutable copy of a map of collections, where each collection
+	 * is also made immutable. Once a resource has finished loading, this allows
+	 * it to be read by many threads at once without any locking.
+	 * 
+	 * @param map
+	 *            - the map to copy
+	 * @return an immutable copy of the map, with immutable sets as values
+	 */
+	public static <K, V> Map<K, Set<V>> toImmutableSetMap(
+			Map<K, ? extends Collection<V>> map) {
+		ImmutableMap.Builder<K, Set<V>> builder = ImmutableMap.builder();
+		for (Entry<K, ? extends Collection<V>> entry : map.entrySet()) {
+			builder.put(entry.getKey(), ImmutableSet.copyOf(entry.getValue()));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Create an immutable copy of a map of collections, where each collection
+	 * is also made immutable (and keeps its ordering).
+	 * 
+	 * @param map
+	 *            - the map to copy
+	 * @return an immutable copy of the map, with immutable lists as values
+	 */
+	public static <K, V> Map<K, List<V>> toImmutableListMap(
+			Map<K, ? extends Collection<V>> map) {
+		ImmutableMap.Builder<K, List<V>> builder = ImmutableMap.builder();
+		for (Entry<K, ? extends Collection<V>> entry : map.entrySet()) {
+			builder.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+		}
+		return builder.build();
+	}
+
 } // End of class Util
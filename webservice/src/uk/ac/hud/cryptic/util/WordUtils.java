@@ -2,15 +2,20 @@ package uk.ac.hud.cryptic.util;
 
 import java.text.Normalizer;
 import java.text.Normalizer.Form;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.regex.Pattern;
 
 import uk.ac.hud.cryptic.core.SolutionPattern;
 
 /**
  * A collection of helper methods relating to the manipulation of words and
  * sentences.
+ * 
+ * Many of these are called from the innermost loops of the solvers, so they
+ * avoid regular expressions (or use precompiled ones) and, where possible,
+ * don't allocate anything. The letter count methods work on an
+ * <code>int[ALPHABET_SIZE]</code> histogram of the lower case letters of a
+ * word, which the caller creates once and reuses.
  */
 public class WordUtils {
 
@@ -34,6 +39,22 @@ public class WordUtils {
 	// Spaces and hyphens
 	public static final String SPACE_AND_HYPHEN = "(\\s+|-)";
 
+	// The number of letters counted by the letter count methods (a-z)
+	public static final int ALPHABET_SIZE = 26;
+
+	// Precompiled versions of the above, for use on every call
+	private static final Pattern NON_LETTERS_SPACES_PATTERN = Pattern
+			.compile(REGEX_NON_LETTERS_SPACES);
+	private static final Pattern NON_LETTERS_PATTERN = Pattern
+			.compile(REGEX_NON_LETTERS);
+	private static final Pattern WHITESPACE_PATTERN = Pattern
+			.compile(REGEX_WHITESPACE);
+	private static final Pattern SPACE_AND_HYPHEN_PATTERN = Pattern
+			.compile(SPACE_AND_HYPHEN);
+	private static final Pattern APOSTROPHE_PATTERN = Pattern.compile("'");
+	private static final Pattern DIACRITICS_PATTERN = Pattern
+			.compile("\\p{InCombiningDiacriticalMarks}+");
+
 	/**
 	 * Check whether the characters known by the user are present within the
 	 * potential solution
@@ -46,12 +67,7 @@ public class WordUtils {
 	 */
 	public static boolean charactersPresentInWord(String word,
 			String[] mandatoryChars) {
-		StringBuilder builder = new StringBuilder();
-		// Convert array of String to String
-		for (String s : mandatoryChars) {
-			builder.append(s);
-		}
-		return hasCharacters(builder.toString(), word);
+		return hasCharacters(mandatoryChars, word);
 	}
 
 	/**
@@ -71,7 +87,7 @@ public class WordUtils {
 	public static boolean wordLengthMatch(String phrase, SolutionPattern pattern) {
 		boolean match = true;
 
-		String[] indWords = phrase.split(WordUtils.SPACE_AND_HYPHEN);
+		String[] indWords = SPACE_AND_HYPHEN_PATTERN.split(phrase);
 		int[] indLengths = new int[indWords.length];
 		for (int i = 0; i < indWords.length; i++) {
 			indLengths[i] = indWords[i].length();
@@ -98,28 +114,176 @@ public class WordUtils {
 	 *         <code>false</code> otherwise
 	 */
 	public static boolean hasCharacters(String targetWord, String characters) {
-		// This list will be reduced as characters are consumed
-		Collection<Character> remaining = new ArrayList<>();
-		for (char c : characters.toCharArray()) {
-			remaining.add(c);
-		}
+		return hasCharacters(new String[] { targetWord }, characters);
+	}
 
-		if (!targetWord.isEmpty()) {
+	/**
+	 * Determine whether a group of words can all be made from a pool of
+	 * characters, using each character of the pool at most once
+	 * 
+	 * @param targetWords
+	 *            - the words to attempt to create
+	 * @param characters
+	 *            - the pool of characters
+	 * @return <code>true</code> if the words can be built from the pool,
+	 *         <code>false</code> otherwise
+	 */
+	private static boolean hasCharacters(String[] targetWords,
+			String characters) {
+		int needed = 0;
+		for (String word : targetWords) {
+			needed += word.length();
+		}
+		if (needed > characters.length()) {
+			return false;
+		}
 
-			// For each character of the target word
-			for (char c : targetWord.toCharArray()) {
-				// If the char isn't available in the pool of remaining
-				// characters,
-				// abort mission
-				if (!remaining.remove(c)) {
-					return false;
+		if (characters.length() <= Long.SIZE) {
+			// Mark off the characters of the pool as they are used, one bit
+			// each, so nothing needs to be allocated
+			long used = 0;
+			for (String word : targetWords) {
+				for (int i = 0; i < word.length(); i++) {
+					char c = word.charAt(i);
+					int index = -1;
+					for (int j = 0; j < characters.length(); j++) {
+						if (characters.charAt(j) == c && (used & 1L << j) == 0) {
+							index = j;
+							break;
+						}
+					}
+					// If the char isn't available in the pool of remaining
+					// characters, abort mission
+					if (index < 0) {
+						return false;
+					}
+					used |= 1L << index;
 				}
 			}
+			return true;
+		}
+
+		// A long pool, so compare the characters of each in order instead
+		char[] target = new char[needed];
+		int position = 0;
+		for (String word : targetWords) {
+			word.getChars(0, word.length(), target, position);
+			position += word.length();
+		}
+		char[] pool = characters.toCharArray();
+		Arrays.sort(target);
+		Arrays.sort(pool);
+		int j = 0;
+		for (char c : target) {
+			while (j < pool.length && pool[j] < c) {
+				j++;
+			}
+			if (j == pool.length || pool[j] != c) {
+				return false;
+			}
+			j++;
 		}
 		// If you've reached here, the target word can indeed be built
 		return true;
 	}
 
+	/**
+	 * Get the position of a lower case letter in a letter count histogram
+	 * 
+	 * @param c
+	 *            - the character
+	 * @return 0 for 'a' up to 25 for 'z', or -1 if it isn't a lower case
+	 *         letter
+	 */
+	public static int letterIndex(char c) {
+		return c >= 'a' && c <= 'z' ? c - 'a' : -1;
+	}
+
+	/**
+	 * Count the lower case letters of some text. Any other characters are
+	 * ignored.
+	 * 
+	 * @param text
+	 *            - the text to count the letters of
+	 * @return a histogram of the letters, indexed by <code>letterIndex</code>
+	 */
+	public static int[] getLetterCounts(CharSequence text) {
+		int[] counts = new int[ALPHABET_SIZE];
+		for (int i = 0; i < text.length(); i++) {
+			int index = letterIndex(text.charAt(i));
+			if (index >= 0) {
+				counts[index]++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Remove the letters of a word from a letter count histogram, but only if
+	 * all of them are available
+	 * 
+	 * @param counts
+	 *            - the histogram of the available letters
+	 * @param word
+	 *            - the word to make
+	 * @return <code>true</code> if the letters were taken, <code>false</code>
+	 *         if the word can't be made (in which case the histogram is left
+	 *         unchanged)
+	 */
+	public static boolean takeLetters(int[] counts, CharSequence word) {
+		for (int i = 0; i < word.length(); i++) {
+			int index = letterIndex(word.charAt(i));
+			if (index < 0 || counts[index] == 0) {
+				// Put back what has been taken so far
+				while (--i >= 0) {
+					counts[letterIndex(word.charAt(i))]++;
+				}
+				return false;
+			}
+			counts[index]--;
+		}
+		return true;
+	}
+
+	/**
+	 * Add the letters of a word (back) to a letter count histogram
+	 * 
+	 * @param counts
+	 *            - the histogram of the available letters
+	 * @param word
+	 *            - the word to add
+	 */
+	public static void returnLetters(int[] counts, CharSequence word) {
+		for (int i = 0; i < word.length(); i++) {
+			int index = letterIndex(word.charAt(i));
+			if (index >= 0) {
+				counts[index]++;
+			}
+		}
+	}
+
+	/**
+	 * Write out the letters of a letter count histogram in alphabetical order
+	 * 
+	 * @param counts
+	 *            - the histogram
+	 * @return the letters, e.g. "eilnst" for the counts of "listen"
+	 */
+	public static String toLetters(int[] counts) {
+		int length = 0;
+		for (int count : counts) {
+			length += count;
+		}
+		char[] letters = new char[length];
+		int position = 0;
+		for (int i = 0; i < counts.length; i++) {
+			Arrays.fill(letters, position, position + counts[i],
+					(char) ('a' + i));
+			position += counts[i];
+		}
+		return new String(letters);
+	}
+
 	/**
 	 * This method will reverse the ordering of a given String word input.
 	 * 
@@ -133,15 +297,14 @@ public class WordUtils {
 			return word;
 		}
 
-		// The reversed word
-		String reversedWord = "";
-
 		// Loop over the word backwards and rebuild
-		for (int i = word.length() - 1; i >= 0; i--) {
-			reversedWord += word.charAt(i);
+		final int last = word.length() - 1;
+		char[] reversedWord = new char[word.length()];
+		for (int i = last; i >= 0; i--) {
+			reversedWord[last - i] = word.charAt(i);
 		}
 
-		return reversedWord;
+		return new String(reversedWord);
 	}
 
 	/**
@@ -156,24 +319,26 @@ public class WordUtils {
 	 */
 	public static String normaliseInput(String input, boolean removeSpaces) {
 		// Select the appropriate REGEX pattern depending on parameters
-		String regex = removeSpaces ? REGEX_NON_LETTERS_SPACES
-				: REGEX_NON_LETTERS;
+		Pattern regex = removeSpaces ? NON_LETTERS_SPACES_PATTERN
+				: NON_LETTERS_PATTERN;
 
 		// First replace apostrophes with nothing - not a space please
-		String output = input.replaceAll("'", "");
+		String output = APOSTROPHE_PATTERN.matcher(input).replaceAll("");
 
-		// Get rid of accented characters
-		output = Normalizer.normalize(output, Form.NFD).replaceAll(
-				"\\p{InCombiningDiacriticalMarks}+", "");
+		// Get rid of accented characters (plain ASCII has none)
+		if (!isAscii(output)) {
+			output = DIACRITICS_PATTERN.matcher(
+					Normalizer.normalize(output, Form.NFD)).replaceAll("");
+		}
 
 		// Replace punctuation with a space
-		output = output.replaceAll(regex, " ");
+		output = regex.matcher(output).replaceAll(" ");
 
 		if (removeSpaces) {
 			output = removeSpacesAndHyphens(output);
 		} else {
 			// Replace multiple spaces with just one
-			output = output.replaceAll("\\s+", " ");
+			output = WHITESPACE_PATTERN.matcher(output).replaceAll(" ");
 		}
 
 		// Trim any excess
@@ -193,7 +358,64 @@ public class WordUtils {
 	 * @return the text with no spaces or hyphens
 	 */
 	public static String removeSpacesAndHyphens(String input) {
-		return input.replaceAll(SPACE_AND_HYPHEN, "");
+		// Most input has nothing to remove, so check before copying
+		int i = 0;
+		while (i < input.length() && !isSpaceOrHyphen(input.charAt(i))) {
+			i++;
+		}
+		if (i == input.length()) {
+			return input;
+		}
+
+		StringBuilder output = new StringBuilder(input.length() - 1);
+		output.append(input, 0, i);
+		for (; i < input.length(); i++) {
+			char c = input.charAt(i);
+			if (!isSpaceOrHyphen(c)) {
+				output.append(c);
+			}
+		}
+		return output.toString();
+	}
+
+	/**
+	 * Check for a whitespace character, as matched by "\\s" in a regular
+	 * expression (which is narrower than <code>Character.isWhitespace</code>)
+	 * 
+	 * @param c
+	 *            - the character to check
+	 * @return <code>true</code> if the character is whitespace
+	 */
+	public static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+				|| c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Check for a character which separates the words of a solution
+	 * 
+	 * @param c
+	 *            - the character to check
+	 * @return <code>true</code> if the character is whitespace or a hyphen
+	 */
+	public static boolean isSpaceOrHyphen(char c) {
+		return c == '-' || isWhitespace(c);
+	}
+
+	/**
+	 * Check whether some text is made up only of ASCII characters
+	 * 
+	 * @param input
+	 *            - the text to check
+	 * @return <code>true</code> if there are no characters above 127
+	 */
+	private static boolean isAscii(String input) {
+		for (int i = 0; i < input.length(); i++) {
+			if (input.charAt(i) > 127) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -204,7 +426,7 @@ public class WordUtils {
 	 * @return A String array of words
 	 */
 	public static String[] getWords(String input) {
-		return input.split(REGEX_WHITESPACE);
+		return WHITESPACE_PATTERN.split(input);
 	}
 
 } // End of class WordUtils
@@ -83,6 +83,30 @@ public class XMLBuilder {
 		xml = new Document(root);
 	}
 
+	/**
+	 * Grid constructor
+	 * 
+	 * @param rows
+	 *            the rows of the grid, with the answers filled in
+	 * @param timeTaken
+	 *            the total time in milliseconds to solve the grid
+	 */
+	public XMLBuilder(List<String> rows, double timeTaken) {
+		// Create a new XML document and set the ROOT element
+		Element root = new Element("solver");
+		// Add each row of the grid
+		Element grid = new Element("grid");
+		for (String row : rows) {
+			grid.addContent(new Element("row").setText(row));
+		}
+		root.addContent(grid);
+		// Set the time take to solve
+		String time = new DecimalFormat("#.##").format(timeTaken / 1000);
+		root.addContent(new Element("duration").setText(time));
+		// Formulate a new document
+		xml = new Document(root);
+	}
+
 	/**
 	 * This method will add the a new key element with the give value. The
 	 * element will be found directly under the root element
@@ -161,6 +185,39 @@ public class XMLBuilder {
 		}
 	}
 
+	/**
+	 * This method will add a new entry element, describing the clue of one
+	 * entry of a grid and how far it has been solved.
+	 * 
+	 * @param id
+	 *            the id of the entry, e.g. "1a"
+	 * @param clue
+	 *            the clue of the entry
+	 * @param pattern
+	 *            the solution pattern of the entry, from the filled in grid
+	 * @param answer
+	 *            the answer written into the grid, or <code>null</code> if
+	 *            it hasn't been filled in
+	 * @param solutions
+	 *            the number of solutions which still fit the entry
+	 */
+	public void addEntry(String id, String clue, String pattern,
+			String answer, int solutions) {
+		// only add if we are not in "error" mode
+		if (!errorMode) {
+			Element entry = new Element("entry");
+			entry.addContent(new Element("id").setText(id));
+			entry.addContent(new Element("clue").setText(clue));
+			entry.addContent(new Element("pattern").setText(pattern));
+			if (answer != null) {
+				entry.addContent(new Element("answer").setText(answer));
+			}
+			entry.addContent(new Element("solutions").setText(String
+					.valueOf(solutions)));
+			xml.getRootElement().addContent(entry);
+		}
+	}
+
 	/**
 	 * This method will convert the XML object within this class to a well
 	 * formatted XML String.
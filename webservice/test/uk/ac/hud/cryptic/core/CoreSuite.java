@@ -14,8 +14,11 @@ import org.junit.runners.Suite.SuiteClasses;
 */
 
 @RunWith(value = Suite.class)
-@SuiteClasses(value = { ClueTest.class, ManagerTest.class, SolutionTest.class,
-                SolutionCollectionTest.class, SolutionPatternTest.class })
+@SuiteClasses(value = { ClueTest.class, GridTest.class, GridSolverTest.class,
+                ManagerTest.class, ResultCacheTest.class, SolutionTest.class,
+                SolutionCollectionTest.class, SolutionPatternTest.class,
+                SolverExecutorTest.class, SolverRegistryTest.class,
+                SolverSchedulerTest.class, TraceTest.class })
 public class CoreSuite {
 
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package uk.ac.hud.cryptic.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for the <code>GridSolver</code> class. The clues are "solved" by a
+ * manager which hands back set solutions, so only the filling in of the grid
+ * is tested.
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class GridSolverTest {
+
+	// A small grid, with three across and three down entries
+	private static final String GRID = "?????\n?#?#?\n?????\n?#?#?\n?????";
+
+	/**
+	 * Hands back set solutions for each clue, recording the patterns asked for
+	 */
+	private static class StubManager extends Manager {
+		private final Map<String, SolutionCollection> solutions = new HashMap<>();
+		private final List<String> patterns = new ArrayList<>();
+
+		/**
+		 * The first word is given the confidence, and the rest less
+		 */
+		private void add(String clue, double confidence, String... words) {
+			SolutionCollection sc = new SolutionCollection();
+			for (String word : words) {
+				sc.add(new Solution(word, confidence, "stub"));
+				confidence = Math.min(confidence, 40);
+			}
+			solutions.put(clue, sc);
+		}
+
+		@Override
+		public SolutionCollection distributeAndSolveClue(Clue clue) {
+			patterns.add(clue.getPattern().toString());
+			SolutionCollection sc = new SolutionCollection();
+			sc.addAll(solutions.get(clue.getClue()));
+			clue.getPattern().filterSolutions(sc);
+			return sc;
+		}
+	}
+
+	@Test
+	public void testCrossingLetters() {
+		StubManager manager = new StubManager();
+		manager.add("one across", 90, "sheep", "shoot");
+		manager.add("one down", 40, "shoot", "stair", "shine");
+		manager.add("two down", 40, "egret", "atlas");
+		manager.add("three down", 40, "plane", "blade");
+		manager.add("four across", 40, "aorta", "orbit");
+		manager.add("five across", 40, "rathe", "tweed");
+
+		GridSolver solver = new GridSolver(Grid.parse(GRID), manager, 30);
+		solver.addClue("1a", "one across", null);
+		solver.addClue("1d", "one down", null);
+		solver.addClue("2d", "two down", null);
+		solver.addClue("3d", "three down", null);
+		solver.addClue("4a", "four across", null);
+		solver.addClue("5a", "five across", null);
+		solver.solve();
+
+		// Every clue is solved once, with the letters its crossers give it
+		assertEquals(6, solver.getSolvedCount());
+		assertEquals(Arrays.asList("?????", "s????", "e????", "p????",
+				"??r?a", "r?t?e"), manager.patterns);
+
+		Grid grid = solver.getGrid();
+		// Confident enough to fill in
+		assertEquals("sheep", solver.getAnswer(grid.getEntry("1a")));
+		// Only one solution fits, and it's confident enough
+		assertEquals("egret", solver.getAnswer(grid.getEntry("2d")));
+		assertEquals("plane", solver.getAnswer(grid.getEntry("3d")));
+		assertEquals("aorta", solver.getAnswer(grid.getEntry("4a")));
+		// Narrowed down by 4a, after 1d was solved
+		assertEquals("stair", solver.getAnswer(grid.getEntry("1d")));
+		assertEquals("rathe", solver.getAnswer(grid.getEntry("5a")));
+		assertEquals(Arrays.asList("sheep", "t#g#l", "aorta", "i#e#n",
+				"rathe"), grid.getRows());
+	}
+
+	@Test
+	public void testUnconfidentAnswers() {
+		StubManager manager = new StubManager();
+		manager.add("one across", 50, "sheep", "shoot");
+		manager.add("one down", 50, "shoot", "stair");
+
+		GridSolver solver = new GridSolver(Grid.parse(GRID), manager, 60);
+		solver.addClue("1a", "one across", null);
+		solver.addClue("1d", "one down", null);
+		solver.solve();
+
+		// Neither is confident enough, and both fit each other
+		Grid grid = solver.getGrid();
+		assertNull(solver.getAnswer(grid.getEntry("1a")));
+		assertNull(solver.getAnswer(grid.getEntry("1d")));
+		assertEquals(2, solver.getSolutions(grid.getEntry("1d")).size());
+		assertEquals("?????", grid.getLetters(grid.getEntry("1d")));
+	}
+
+	@Test
+	public void testWeakSingleton() {
+		StubManager manager = new StubManager();
+		manager.add("one down", 30, "stair");
+		manager.add("one across", 70, "trunk");
+
+		GridSolver solver = new GridSolver(Grid.parse(GRID), manager, 60);
+		solver.addClue("1d", "one down", null);
+		solver.addClue("1a", "one across", null);
+		solver.solve();
+
+		// The only solution to 1d isn't confident enough, so doesn't stop 1a
+		// being found
+		Grid grid = solver.getGrid();
+		assertNull(solver.getAnswer(grid.getEntry("1d")));
+		assertEquals("trunk", solver.getAnswer(grid.getEntry("1a")));
+
+		// 1a leaves 1d with nothing which fits, so it's solved again
+		assertEquals(Arrays.asList("?????", "?????", "t????"),
+				manager.patterns);
+		assertEquals(2, solver.getSolvedCount());
+		assertEquals(0, solver.getSolutions(grid.getEntry("1d")).size());
+	}
+
+	@Test
+	public void testEnumeration() {
+		StubManager manager = new StubManager();
+		manager.add("a bit of fun", 90, "jeu d esprit");
+
+		GridSolver solver = new GridSolver(Grid.parse("??????????"), manager,
+				60);
+		solver.addClue("1a", "a bit of fun", "3,1-6");
+		assertEquals("???,?-??????",
+				solver.getPattern(solver.getGrid().getEntry("1a")).toString());
+
+		for (String enumeration : new String[] { "3,6", "3,,7", "ten" }) {
+			try {
+				solver.addClue("1a", "a bit of fun", enumeration);
+				fail("\"" + enumeration + "\" isn't a valid enumeration");
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+		try {
+			solver.addClue("2d", "a bit of fun", null);
+			fail("There is no 2d");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
+} // End of class GridSolverTest
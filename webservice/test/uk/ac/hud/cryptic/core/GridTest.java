@@ -0,0 +1,97 @@
+package uk.ac.hud.cryptic.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.hud.cryptic.core.Grid.Entry;
+
+/**
+ * Tests for the <code>Grid</code> class
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class GridTest {
+
+	// A small grid, with three across and three down entries
+	private static final String GRID = "?????\n?#?#?\n?????\n?#?#?\n?????";
+
+	/**
+	 * Get the ids of some entries
+	 */
+	private static List<String> ids(Collection<Entry> entries) {
+		List<String> ids = new ArrayList<>();
+		for (Entry entry : entries) {
+			ids.add(entry.getId());
+		}
+		return ids;
+	}
+
+	@Test
+	public void testNumbering() {
+		Grid grid = Grid.parse(GRID);
+		assertEquals(Arrays.asList("1a", "1d", "2d", "3d", "4a", "5a"),
+				ids(grid.getEntries()));
+		assertEquals(5, grid.getEntry("1a").getLength());
+		assertTrue(grid.getEntry("2D").getNumber() == 2);
+		assertFalse(grid.getEntry("2d").isAcross());
+		assertNull(grid.getEntry("2a"));
+	}
+
+	@Test
+	public void testFill() {
+		Grid grid = Grid.parse(GRID.replace('?', '.'));
+		Collection<Entry> changed = grid.fill(grid.getEntry("1a"), "sheep");
+		assertEquals(Arrays.asList("1d", "2d", "3d"), ids(changed));
+		assertEquals("s????", grid.getLetters(grid.getEntry("1d")));
+		assertEquals("e????", grid.getLetters(grid.getEntry("2d")));
+		assertFalse(grid.isComplete(grid.getEntry("1d")));
+		assertTrue(grid.isComplete(grid.getEntry("1a")));
+
+		// Letters already there don't change anything
+		changed = grid.fill(grid.getEntry("1d"), "shoot");
+		assertEquals(Arrays.asList("4a", "5a"), ids(changed));
+		assertEquals("t????", grid.getLetters(grid.getEntry("5a")));
+		assertTrue(grid.fill(grid.getEntry("1a"), "sheep").isEmpty());
+
+		// An answer has to fit the letters already there
+		try {
+			grid.fill(grid.getEntry("4a"), "bread");
+			fail("The answer doesn't fit");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		assertEquals(Arrays.asList("sheep", "h#?#?", "o????", "o#?#?",
+				"t????"), grid.getRows());
+	}
+
+	@Test
+	public void testKnownLetters() {
+		Grid grid = Grid.parse("\nCAT\n#??\n");
+		assertEquals("cat", grid.getLetters(grid.getEntry("1a")));
+		assertEquals("a?", grid.getLetters(grid.getEntry("2d")));
+	}
+
+	@Test
+	public void testInvalidGrid() {
+		for (String text : new String[] { "", "???\n??", "?!?" }) {
+			try {
+				Grid.parse(text);
+				fail("\"" + text + "\" isn't a valid grid");
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+} // End of class GridTest
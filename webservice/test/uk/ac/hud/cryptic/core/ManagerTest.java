@@ -8,6 +8,12 @@
 package uk.ac.hud.cryptic.core;
 
 import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -48,4 +54,137 @@ public class ManagerTest {
 		assertTrue(!sol.isEmpty());
 	}
 
+	/**
+	 * This test checks that a clue which has just been solved is taken from
+	 * the result cache, rather than solved again
+	 */
+	@Test
+	public final void testCachedResults() {
+		Clue palindrome = new Clue("Girl's name in both directions", "????");
+		Manager man = new Manager();
+		SolutionCollection first = man.distributeAndSolveClue(palindrome);
+		assertTrue(!first.isCached());
+
+		SolutionCollection second = man.distributeAndSolveClue(new Clue(
+				"Girl's name, in both directions!", "????"));
+		assertTrue(second.isCached());
+		assertEquals(first.size(), second.size());
+		for (Solution s : first) {
+			assertTrue(second.contains(s.getSolution()));
+		}
+	}
+
+	/**
+	 * This test checks that the solutions of each solver are passed on as the
+	 * solver finishes, and that they make up the final results
+	 */
+	@Test
+	public final void testSolutionListener() {
+		final List<String> solvers = new ArrayList<>();
+		final Set<String> streamed = new HashSet<>();
+		Clue hidden = new Clue("Fruit found in grape, arrested", "????");
+		Manager man = new Manager();
+		SolutionCollection sol = man.distributeAndSolveClue(hidden, 0,
+				new SolutionListener() {
+					@Override
+					public void solutionsFound(String solver,
+							SolutionCollection solutions) {
+						solvers.add(solver);
+						for (Solution s : solutions) {
+							streamed.add(s.getSolution());
+						}
+					}
+				});
+
+		// Each solver reports once
+		assertEquals(new HashSet<>(solvers).size(), solvers.size());
+		assertTrue(solvers.contains("hidden"));
+		assertTrue(!sol.isPartial());
+		for (Solution s : sol) {
+			assertTrue(streamed.contains(s.getSolution()));
+		}
+		assertTrue(sol.contains("pear"));
+	}
+
+	/**
+	 * This test checks that a listener is still given the solutions of each
+	 * solver when the results are taken from the result cache
+	 */
+	@Test
+	public final void testCachedSolutionListener() {
+		Clue hidden = new Clue("Animal found in scattered ashes", "???");
+		Manager man = new Manager();
+		final List<String> solvers = new ArrayList<>();
+		final Set<String> streamed = new HashSet<>();
+		SolutionListener listener = new SolutionListener() {
+			@Override
+			public void solutionsFound(String solver,
+					SolutionCollection solutions) {
+				solvers.add(solver);
+				for (Solution s : solutions) {
+					streamed.add(s.getSolution());
+				}
+			}
+		};
+		man.distributeAndSolveClue(hidden, 0, listener);
+		List<String> solved = new ArrayList<>(solvers);
+		solvers.clear();
+		streamed.clear();
+
+		SolutionCollection sol = man.distributeAndSolveClue(hidden, 0,
+				listener);
+		assertTrue(sol.isCached());
+		// The same solvers report, each once
+		assertEquals(new HashSet<>(solved), new HashSet<>(solvers));
+		assertEquals(solved.size(), solvers.size());
+		for (Solution s : sol) {
+			assertTrue(streamed.contains(s.getSolution()));
+		}
+		assertTrue(sol.contains("cat"));
+	}
+
+	/**
+	 * This test checks that solvers still running when the time budget runs
+	 * out are abandoned, and the solutions are marked as partial
+	 */
+	@Test
+	public final void testTimeBudget() {
+		Clue slow = new Clue("Eleven plus two rearranged to make a sum",
+				"??????,????,???");
+		Manager man = new Manager();
+		long start = System.currentTimeMillis();
+		SolutionCollection sol = man.distributeAndSolveClue(slow, 1);
+		assertTrue(sol.isPartial());
+		assertTrue(System.currentTimeMillis() - start < 10000);
+	}
+
+	/**
+	 * This test checks that an answer is only treated as confident once it
+	 * reaches the threshold and another solver agrees with it
+	 */
+	@Test
+	public final void testConfidentAnswer() {
+		Clue c = new Clue("Xyzzy plugh", "?????");
+		Manager man = new Manager(80);
+		SolutionCollection all = new SolutionCollection();
+
+		SolutionCollection first = new SolutionCollection();
+		first.add(new Solution("music", 90, "first"));
+		first.add(new Solution("salse", 50, "first"));
+		assertFalse(man.addAndCheckConfident(c, all, first));
+
+		// Agreement on a solution below the threshold isn't enough
+		SolutionCollection second = new SolutionCollection();
+		second.add(new Solution("salse", 40, "second"));
+		assertFalse(man.addAndCheckConfident(c, all, second));
+
+		SolutionCollection third = new SolutionCollection();
+		third.add(new Solution("music", 30, "third"));
+		assertTrue(man.addAndCheckConfident(c, all, third));
+		assertEquals(2, all.size());
+
+		// Never stop early when the threshold is 0
+		assertFalse(new Manager(0).addAndCheckConfident(c, all, third));
+	}
+
 }
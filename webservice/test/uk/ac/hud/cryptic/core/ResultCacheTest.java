@@ -0,0 +1,169 @@
+package uk.ac.hud.cryptic.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the <code>ResultCache</code> class
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class ResultCacheTest {
+
+	/**
+	 * Create some solutions to cache
+	 */
+	private static SolutionCollection solutions(String... words) {
+		SolutionCollection solutions = new SolutionCollection();
+		for (String word : words) {
+			Solution s = new Solution(word, "test");
+			s.addToTrace("Found by a test.");
+			solutions.add(s);
+		}
+		return solutions;
+	}
+
+	@Test
+	public void testGetAndPut() {
+		ResultCache cache = new ResultCache(10, 0);
+		Clue clue = new Clue("Fruit found in grape, arrested", "????");
+		assertNull(cache.get(clue));
+
+		SolutionCollection solutions = solutions("pear", "pare");
+		cache.put(clue, solutions);
+		assertFalse(solutions.isCached());
+
+		SolutionCollection cached = cache.get(clue);
+		assertTrue(cached.isCached());
+		assertEquals(2, cached.size());
+		assertTrue(cached.contains("pear"));
+		assertEquals(1, cached.getSolution("pear").getSolutionTrace().size());
+	}
+
+	@Test
+	public void testResultsAreCopied() {
+		ResultCache cache = new ResultCache(10, 0);
+		Clue clue = new Clue("Fruit found in grape, arrested", "????");
+		SolutionCollection solutions = solutions("pear");
+		cache.put(clue, solutions);
+
+		// Changing the original doesn't change what's cached
+		solutions.getSolution("pear").addToTrace("Changed.");
+		solutions.add(new Solution("reap", "test"));
+
+		SolutionCollection cached = cache.get(clue);
+		assertEquals(1, cached.size());
+		assertNotSame(solutions.getSolution("pear"), cached.getSolution("pear"));
+		assertEquals(1, cached.getSolution("pear").getSolutionTrace().size());
+
+		// And nor does changing what was returned
+		cached.getSolution("pear").setConfidence(1);
+		assertTrue(cache.get(clue).getSolution("pear").getConfidence() > 1);
+	}
+
+	@Test
+	public void testKeyIsNormalised() {
+		ResultCache cache = new ResultCache(10, 0);
+		cache.put(new Clue("Fruit found in grape, arrested", "????"),
+				solutions("pear"));
+
+		assertTrue(cache.get(new Clue("  FRUIT found  in grape arrested!",
+				"????")) != null);
+		// The pattern has to be the same (or a refinement of it)
+		assertNull(cache.get(new Clue("Fruit found in grape, arrested",
+				"??-?")));
+		assertNull(cache.get(new Clue("Fruit found in grape, arrested",
+				"?????")));
+	}
+
+	@Test
+	public void testRefinedPattern() {
+		ResultCache cache = new ResultCache(10, 0);
+		String text = "Pale grey fish";
+		cache.put(new Clue(text, "???????"),
+				solutions("haddock", "halibut", "mackrel", "pollock"));
+
+		// Known letters narrow down the earlier solutions
+		SolutionCollection refined = cache.get(new Clue(text, "?a?????"));
+		assertTrue(refined.isCached());
+		assertEquals(3, refined.size());
+		assertFalse(refined.contains("pollock"));
+
+		refined = cache.get(new Clue(text, "?a?d???"));
+		assertEquals(1, refined.size());
+		assertTrue(refined.contains("haddock"));
+		assertEquals(1, refined.getSolution("haddock").getSolutionTrace()
+				.size());
+
+		// No matches, so the clue has to be solved properly
+		assertNull(cache.get(new Clue(text, "?e?????")));
+		// Nor can a pattern which isn't a refinement be used
+		assertNull(cache.get(new Clue(text, "???,????")));
+		assertNull(cache.get(new Clue("Another clue", "?a?????")));
+	}
+
+	@Test
+	public void testPartialResultsNotCached() {
+		ResultCache cache = new ResultCache(10, 0);
+		Clue clue = new Clue("Fruit found in grape, arrested", "????");
+		SolutionCollection solutions = solutions("pear");
+		solutions.setPartial(true);
+		cache.put(clue, solutions);
+		assertNull(cache.get(clue));
+	}
+
+	@Test
+	public void testCapacity() {
+		ResultCache cache = new ResultCache(2, 0);
+		for (int i = 0; i < 5; i++) {
+			cache.put(new Clue("Clue number " + i, "????"), solutions("pear"));
+		}
+		assertTrue(cache.size() <= 2);
+
+		// Nothing is kept if caching is disabled
+		ResultCache disabled = new ResultCache(0, 0);
+		Clue clue = new Clue("Fruit found in grape, arrested", "????");
+		disabled.put(clue, solutions("pear"));
+		assertNull(disabled.get(clue));
+	}
+
+	@Test
+	public void testExpiry() throws Exception {
+		ResultCache cache = new ResultCache(10, 20);
+		Clue clue = new Clue("Fruit found in grape, arrested", "????");
+		cache.put(clue, solutions("pear"));
+		Thread.sleep(50);
+		assertNull(cache.get(clue));
+	}
+
+	@Test
+	public void testInvalidateAll() {
+		ResultCache cache = new ResultCache(10, 0);
+		Clue clue = new Clue("Fruit found in grape, arrested", "????");
+		cache.put(clue, solutions("pear"));
+		cache.invalidateAll();
+		assertEquals(0, cache.size());
+		assertNull(cache.get(clue));
+	}
+
+	/**
+	 * Results found by the previous solvers are dropped when the solvers are
+	 * loaded again
+	 */
+	@Test
+	public void testInvalidatedOnSolverReload() {
+		ResultCache cache = ResultCache.getInstance();
+		Clue clue = new Clue("Fruit found in grape, arrested", "????");
+		cache.put(clue, solutions("pear"));
+		assertTrue(cache.get(clue) != null);
+		SolverRegistry.getInstance().reload();
+		assertNull(cache.get(clue));
+	}
+
+} // End of class ResultCacheTest
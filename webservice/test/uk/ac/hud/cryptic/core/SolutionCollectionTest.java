@@ -15,7 +15,9 @@ import static org.junit.Assert.assertTrue;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.After;
 import org.junit.Before;
@@ -208,5 +210,90 @@ public class SolutionCollectionTest {
 		Solution res = sols.getSolution("music");
 		assertEquals(solution, res);
 	}
-	
+
+	/**
+	 * Test solutions are found regardless of their spaces and hyphens
+	 */
+	@Test
+	public final void testContainsIgnoresSeparators() {
+		sols.add(new Solution("top hat", 30, "undefined"));
+		assertTrue(sols.contains("top-hat"));
+		assertTrue(sols.contains("tophat"));
+		assertEquals("top hat", sols.getSolution("top-hat").getSolution());
+	}
+
+	/**
+	 * Test the same solution from a second solver is merged with the first,
+	 * raising its confidence, while a repeat from the same solver is ignored
+	 */
+	@Test
+	public final void testAddMergesSolvers() {
+		int size = sols.size();
+		assertFalse(sols.add(new Solution("music", 95, "undefined")));
+		assertEquals(90, sols.getSolution("music").getConfidence(), 0);
+
+		assertTrue(sols.add(new Solution("music", 50, "anagram")));
+		assertEquals(size, sols.size());
+		assertTrue(sols.getSolution("music").getConfidence() > 90);
+	}
+
+	/**
+	 * Test several threads can add solutions to a concurrent collection at once
+	 * without any being lost
+	 */
+	@Test
+	public final void testConcurrentAdd() throws InterruptedException {
+		final SolutionCollection shared = new ConcurrentSolutionCollection();
+		final CountDownLatch start = new CountDownLatch(1);
+		final int threads = 4;
+		final int words = 500;
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final String type = "solver" + t;
+			workers[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < words; i++) {
+						shared.add(new Solution("word" + i, 10, type));
+					}
+				}
+			});
+			workers[t].start();
+		}
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		assertEquals(words, shared.size());
+		// Every solver found every word, so each was merged the same way
+		double confidence = shared.getSolution("word0").getConfidence();
+		for (Solution s : shared) {
+			assertEquals(confidence, s.getConfidence(), 0);
+		}
+	}
+
+	/**
+	 * Test only the best solutions above the minimum confidence are returned,
+	 * in the same order as they would be sorted
+	 */
+	@Test
+	public final void testGetTopSolutions() {
+		List<Solution> top = sols.getTopSolutions(3, 0);
+		assertEquals(3, top.size());
+		assertEquals("music", top.get(0).getSolution());
+		assertEquals("salse", top.get(1).getSolution());
+		assertEquals("taths", top.get(2).getSolution());
+
+		assertEquals(new ArrayList<>(sols.sortSolutions()),
+				sols.getTopSolutions(0, 0));
+		assertEquals(3, sols.getTopSolutions(0, 20).size());
+		assertTrue(sols.getTopSolutions(5, 95).isEmpty());
+	}
+
 }
@@ -238,6 +238,28 @@ public class SolutionPatternTest {
 				solPattern.separateSolution("thisshouldbesplit"));
 	}
 
+	@Test
+	public void testIsRefinementOf() {
+		SolutionPattern general = new SolutionPattern("???????");
+		SolutionPattern one = new SolutionPattern("?a?????");
+		SolutionPattern two = new SolutionPattern("?A??e??");
+		assertTrue(one.isRefinementOf(general));
+		assertTrue(two.isRefinementOf(general));
+		assertTrue(two.isRefinementOf(one));
+		assertTrue(one.isRefinementOf(one));
+		// Known characters can't be lost or changed
+		assertFalse(general.isRefinementOf(one));
+		assertFalse(new SolutionPattern("?b??e??").isRefinementOf(one));
+
+		// The words have to be the same
+		SolutionPattern words = new SolutionPattern("???,????-???");
+		assertTrue(new SolutionPattern("t??,????-???").isRefinementOf(words));
+		assertFalse(new SolutionPattern("???-????-???").isRefinementOf(words));
+		assertFalse(new SolutionPattern("????????????").isRefinementOf(words));
+		assertFalse(words.isRefinementOf(new SolutionPattern("????????????")));
+		assertFalse(new SolutionPattern("????????").isRefinementOf(general));
+	}
+
 	@Test
 	public void testSplitPattern() {
 		SolutionPattern solPattern = new SolutionPattern("??-????-??");
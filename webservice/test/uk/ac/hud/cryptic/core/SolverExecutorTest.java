@@ -0,0 +1,227 @@
+package uk.ac.hud.cryptic.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for the <code>SolverExecutor</code> class
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class SolverExecutorTest {
+
+	/**
+	 * Create a task which will return the given value
+	 */
+	private static Callable<Integer> task(final int value) {
+		return new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * Create a task which won't finish until the latch is released
+	 */
+	private static Callable<Integer> blocking(final CountDownLatch latch) {
+		return new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				latch.await();
+				return 0;
+			}
+		};
+	}
+
+	@Test
+	public void testSubmit() throws Exception {
+		SolverExecutor executor = new SolverExecutor(2, 10, 2, 4, 100);
+		try {
+			Future<Integer> future = executor.submit("test", task(42));
+			assertEquals(Integer.valueOf(42), future.get());
+			assertEquals(0, executor.getOutstandingTasks("test"));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testClueAdmission() {
+		SolverExecutor executor = new SolverExecutor(1, 10, 1, 4, 10);
+		try {
+			executor.admit();
+			assertEquals(1, executor.getActiveClues());
+			try {
+				executor.admit();
+				fail("A second clue should not have been admitted");
+			} catch (RejectedExecutionException e) {
+				// Expected
+			}
+			executor.release();
+			assertEquals(0, executor.getActiveClues());
+			executor.admit();
+			executor.release();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSolverConcurrencyLimit() throws Exception {
+		SolverExecutor executor = new SolverExecutor(2, 10, 2, 1, 10);
+		CountDownLatch latch = new CountDownLatch(1);
+		try {
+			Future<Integer> first = executor.submit("slow", blocking(latch));
+			assertEquals(1, executor.getOutstandingTasks("slow"));
+			try {
+				executor.submit("slow", task(1));
+				fail("The solver limit should have been reached");
+			} catch (RejectedExecutionException e) {
+				// Expected
+			}
+			// Other solvers are unaffected
+			assertEquals(Integer.valueOf(2), executor.submit("fast", task(2))
+					.get());
+
+			latch.countDown();
+			first.get(5, TimeUnit.SECONDS);
+			assertEquals(Integer.valueOf(3), executor.submit("slow", task(3))
+					.get());
+		} finally {
+			latch.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testQueueFull() throws Exception {
+		SolverExecutor executor = new SolverExecutor(1, 1, 2, 10, 10);
+		CountDownLatch latch = new CountDownLatch(1);
+		try {
+			executor.submit("a", blocking(latch));
+			// Make sure the worker has picked up the first task
+			while (executor.getActiveCount() == 0) {
+				Thread.sleep(5);
+			}
+			executor.submit("a", task(1));
+			assertEquals(1, executor.getQueueDepth());
+			try {
+				executor.submit("a", task(2));
+				fail("The queue should have been full");
+			} catch (RejectedExecutionException e) {
+				// Expected, and the permit should have been returned
+				assertEquals(2, executor.getOutstandingTasks("a"));
+			}
+		} finally {
+			latch.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testInvokeNestedDoesNotDeadlock() throws Exception {
+		// A single worker, which will be busy running the outer task
+		final SolverExecutor executor = new SolverExecutor(1, 2, 1, 10, 10);
+		try {
+			Future<Integer> outer = executor.submit("outer",
+					new Callable<Integer>() {
+						@Override
+						public Integer call() throws Exception {
+							Collection<Callable<Integer>> tasks = new ArrayList<>();
+							for (int i = 1; i <= 5; i++) {
+								tasks.add(task(i));
+							}
+							int total = 0;
+							for (int i : executor.invokeNested(tasks)) {
+								total += i;
+							}
+							return total;
+						}
+					});
+			assertEquals(Integer.valueOf(15), outer.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testInvokeNestedOrder() throws Exception {
+		SolverExecutor executor = new SolverExecutor(4, 10, 1, 10, 10);
+		try {
+			List<Callable<Integer>> tasks = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				tasks.add(task(i));
+			}
+			List<Integer> results = executor.invokeNested(tasks);
+			assertEquals(20, results.size());
+			for (int i = 0; i < 20; i++) {
+				assertEquals(Integer.valueOf(i), results.get(i));
+			}
+			assertTrue(executor.getQueueDepth() == 0);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSubmitRequest() throws Exception {
+		// Requests have their own threads, separate from the solvers
+		SolverExecutor executor = new SolverExecutor(1, 1, 1, 10, 10);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final CountDownLatch ran = new CountDownLatch(1);
+		try {
+			// Every solver thread is busy, but requests still run
+			executor.submit("a", blocking(latch));
+			executor.submitRequest(new Runnable() {
+				@Override
+				public void run() {
+					ran.countDown();
+					try {
+						latch.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+			// One request running, and one queued, fill it up
+			executor.submitRequest(new Runnable() {
+				@Override
+				public void run() {
+					// Nothing to do
+				}
+			});
+			try {
+				executor.submitRequest(new Runnable() {
+					@Override
+					public void run() {
+						// Nothing to do
+					}
+				});
+				fail("The request queue should have been full");
+			} catch (RejectedExecutionException e) {
+				// Expected
+			}
+		} finally {
+			latch.countDown();
+			executor.shutdown();
+		}
+	}
+
+} // End of class SolverExecutorTest
@@ -0,0 +1,96 @@
+package uk.ac.hud.cryptic.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.hud.cryptic.core.SolverRegistry.SolverInfo;
+import uk.ac.hud.cryptic.solver.Anagram;
+import uk.ac.hud.cryptic.solver.Hidden;
+import uk.ac.hud.cryptic.solver.Solver;
+
+/**
+ * Tests for the <code>SolverRegistry</code> class
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class SolverRegistryTest {
+
+	/**
+	 * Parse the given lines as a solvers properties file
+	 */
+	private static List<SolverInfo> parse(String... lines) throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (String line : lines) {
+			sb.append(line).append('\n');
+		}
+		return SolverRegistry.parse(new BufferedReader(new StringReader(sb
+				.toString())));
+	}
+
+	@Test
+	public void testParse() throws Exception {
+		List<SolverInfo> solvers = parse("# A comment", "",
+				"uk.ac.hud.cryptic.solver.Anagram cost=5 "
+						+ "resources=dictionary,thesaurus",
+				"#uk.ac.hud.cryptic.solver.Charade",
+				"  uk.ac.hud.cryptic.solver.Hidden  ");
+
+		assertEquals(2, solvers.size());
+
+		SolverInfo anagram = solvers.get(0);
+		assertEquals("anagram", anagram.getName());
+		assertEquals(5, anagram.getCost());
+		assertEquals(new HashSet<>(Arrays.asList("dictionary", "thesaurus")),
+				anagram.getResources());
+		assertSame(Anagram.class, anagram.getSolverClass());
+
+		// Attributes are optional
+		SolverInfo hidden = solvers.get(1);
+		assertEquals("hidden", hidden.getName());
+		assertEquals(1, hidden.getCost());
+		assertTrue(hidden.getResources().isEmpty());
+	}
+
+	@Test
+	public void testParseSkipsInvalidSolvers() throws Exception {
+		List<SolverInfo> solvers = parse("uk.ac.hud.cryptic.solver.Missing",
+				"java.lang.String", "uk.ac.hud.cryptic.solver.Hidden cost=x");
+		assertEquals(1, solvers.size());
+		// An invalid cost falls back to the default
+		assertEquals(1, solvers.get(0).getCost());
+	}
+
+	@Test
+	public void testCreate() throws Exception {
+		SolverInfo hidden = parse("uk.ac.hud.cryptic.solver.Hidden").get(0);
+		Clue clue = new Clue("Capital concealed in Hanover, Romeo", "????");
+		Solver first = hidden.create(clue);
+		Solver second = hidden.create(clue);
+		assertTrue(first instanceof Hidden);
+		// A new solver is created each time
+		assertTrue(first != second);
+		assertTrue(first.call().contains("rome"));
+	}
+
+	@Test
+	public void testGetSolvers() {
+		SolverRegistry registry = SolverRegistry.getInstance();
+		List<SolverInfo> solvers = registry.getSolvers();
+		assertTrue(!solvers.isEmpty());
+		// Loaded once, so the same list is returned until the file changes
+		assertSame(solvers, registry.getSolvers());
+		assertEquals(solvers.size(), registry.createSolvers(
+				new Clue("clue", "????")).size());
+	}
+
+}
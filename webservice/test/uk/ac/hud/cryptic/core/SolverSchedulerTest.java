@@ -0,0 +1,142 @@
+package uk.ac.hud.cryptic.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import uk.ac.hud.cryptic.core.SolverRegistry.SolverInfo;
+import uk.ac.hud.cryptic.core.SolverScheduler.Scheduled;
+
+/**
+ * Tests for the <code>SolverScheduler</code> class
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class SolverSchedulerTest {
+
+	// A cheap solver, an expensive one, and one with no known indicators
+	private static final String SOLVERS = "uk.ac.hud.cryptic.solver.Hidden cost=1\n"
+			+ "uk.ac.hud.cryptic.solver.Spoonerism cost=3\n"
+			+ "uk.ac.hud.cryptic.solver.DoubleDefinition cost=2\n";
+
+	// When the categoriser isn't available
+	private static final Map<String, Double> NO_PROBABILITIES = Collections
+			.emptyMap();
+
+	/**
+	 * Load the test solvers
+	 */
+	private static List<SolverInfo> getSolvers() throws Exception {
+		return SolverRegistry.parse(new BufferedReader(new StringReader(
+				SOLVERS)));
+	}
+
+	/**
+	 * Get the names of the scheduled solvers, in order
+	 */
+	private static List<String> getNames(Collection<Scheduled> scheduled) {
+		List<String> names = new ArrayList<>();
+		for (Scheduled s : scheduled) {
+			names.add(s.toString());
+		}
+		return names;
+	}
+
+	/**
+	 * Test every solver is run, in the listed order (cheapest first), when
+	 * there are no indicators in the clue
+	 */
+	@Test
+	public void testNoEvidence() throws Exception {
+		SolverScheduler scheduler = new SolverScheduler(0.5, 3, 0.5, 0.5);
+		List<Scheduled> scheduled = scheduler.schedule(
+				Collections.<String> emptyList(), NO_PROBABILITIES,
+				getSolvers());
+		assertEquals(Arrays.asList("hidden", "double definition",
+				"spoonerism"), getNames(scheduled));
+		for (Scheduled s : scheduled) {
+			assertTrue(s.isLikely());
+			assertEquals(1000, scheduler.getTimeBudget(s, 1000));
+		}
+	}
+
+	/**
+	 * Test an indicated solver is run first with the whole time budget, while
+	 * an expensive solver with evidence against it isn't run at all
+	 */
+	@Test
+	public void testIndicated() throws Exception {
+		SolverScheduler scheduler = new SolverScheduler(0.5, 3, 0.5, 0.5);
+		List<Scheduled> scheduled = scheduler.schedule(
+				Arrays.asList("hidden"), NO_PROBABILITIES, getSolvers());
+		assertEquals(Arrays.asList("hidden", "double definition"),
+				getNames(scheduled));
+
+		assertTrue(scheduled.get(0).isLikely());
+		assertEquals(1000, scheduler.getTimeBudget(scheduled.get(0), 1000));
+		// Nothing is known about double definitions, so it gets a share
+		assertFalse(scheduled.get(1).isLikely());
+		assertEquals(500, scheduler.getTimeBudget(scheduled.get(1), 1000));
+		// No limit means no limit for any solver
+		assertEquals(0, scheduler.getTimeBudget(scheduled.get(1), 0));
+	}
+
+	/**
+	 * Test a wide enough recall margin keeps every solver
+	 */
+	@Test
+	public void testRecallMargin() throws Exception {
+		SolverScheduler scheduler = new SolverScheduler(1, 3, 0.5, 0.5);
+		List<Scheduled> scheduled = scheduler.schedule(
+				Arrays.asList("spoonerism"), NO_PROBABILITIES, getSolvers());
+		assertEquals(Arrays.asList("spoonerism", "double definition",
+				"hidden"), getNames(scheduled));
+	}
+
+	/**
+	 * Test the categoriser's probabilities decide the order when there are no
+	 * indicators, with types it doesn't know about in the middle
+	 */
+	@Test
+	public void testProbabilities() throws Exception {
+		SolverScheduler scheduler = new SolverScheduler(1, 3, 0.5, 0.5);
+		Map<String, Double> probabilities = new HashMap<>();
+		probabilities.put("spoonerism", 0.6);
+		probabilities.put("hidden", 0.1);
+		List<Scheduled> scheduled = scheduler.schedule(
+				Collections.<String> emptyList(), probabilities, getSolvers());
+		assertEquals(Arrays.asList("spoonerism", "double definition",
+				"hidden"), getNames(scheduled));
+		assertTrue(scheduled.get(0).isLikely());
+		assertFalse(scheduled.get(2).isLikely());
+	}
+
+	/**
+	 * Test an expensive solver is still run, by default, when the clue has
+	 * indicators of other types but not its own
+	 */
+	@Test
+	public void testMixedIndicators() throws Exception {
+		List<SolverInfo> solvers = SolverRegistry.parse(new BufferedReader(
+				new StringReader(SOLVERS
+						+ "uk.ac.hud.cryptic.solver.Anagram cost=5\n")));
+		List<Scheduled> scheduled = SolverScheduler.getInstance().schedule(
+				Arrays.asList("hidden", "container"), NO_PROBABILITIES,
+				solvers);
+		assertTrue(getNames(scheduled).contains("anagram"));
+	}
+
+}
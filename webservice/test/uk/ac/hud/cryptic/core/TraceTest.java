@@ -0,0 +1,82 @@
+package uk.ac.hud.cryptic.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for the <code>Trace</code> class
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class TraceTest {
+
+	/**
+	 * Test steps are rendered in the order they were added, with their
+	 * templates filled in
+	 */
+	@Test
+	public void testRender() {
+		Trace trace = Trace.EMPTY.append("\"%s\" is a synonym of \"%s\".",
+				"car", "auto").append("Put together.");
+		assertEquals(2, trace.size());
+		assertEquals(Arrays.asList("\"car\" is a synonym of \"auto\".",
+				"Put together."), trace.render());
+	}
+
+	/**
+	 * Test a message without arguments is kept as it is, even if it looks like
+	 * a template
+	 */
+	@Test
+	public void testRenderWithoutArguments() {
+		assertEquals(Arrays.asList("100% sure"),
+				Trace.EMPTY.append("100% sure").render());
+	}
+
+	/**
+	 * Test adding a step leaves the original trace alone, so branches of a
+	 * search can share their earlier steps
+	 */
+	@Test
+	public void testAppendSharesSteps() {
+		Trace root = Trace.EMPTY.append("First");
+		Trace left = root.append("Left");
+		Trace right = root.append("Right");
+		assertEquals(Arrays.asList("First"), root.render());
+		assertEquals(Arrays.asList("First", "Left"), left.render());
+		assertEquals(Arrays.asList("First", "Right"), right.render());
+	}
+
+	/**
+	 * Test empty messages aren't added
+	 */
+	@Test
+	public void testAppendEmpty() {
+		assertSame(Trace.EMPTY, Trace.EMPTY.append(""));
+		assertSame(Trace.EMPTY, Trace.EMPTY.append(null));
+		assertTrue(Trace.EMPTY.render().isEmpty());
+	}
+
+	/**
+	 * Test a copied solution can add to its trace without changing the
+	 * original's
+	 */
+	@Test
+	public void testSolutionCopy() {
+		Solution original = new Solution("test", "undefined");
+		original.addToTrace("Found by %s.", "test");
+		Solution copy = new Solution(original);
+		copy.addToTrace("Copied.");
+		assertEquals(Arrays.asList("Found by test."),
+				original.getSolutionTrace());
+		assertEquals(Arrays.asList("Found by test.", "Copied."),
+				copy.getSolutionTrace());
+	}
+
+}
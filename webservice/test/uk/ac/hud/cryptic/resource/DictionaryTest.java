@@ -131,4 +131,87 @@ public class DictionaryTest {
 		dictionary.dictionaryFilter(testColl, pattern);
 		assertEquals(2, testColl.size());
 	}
+	
+	@Test
+	public void testAreWords()
+	{
+		assertTrue(dictionary.areWords("hello"));
+		assertTrue(dictionary.areWords("hello world"));
+		assertTrue(dictionary.areWords("ice-cream  cone"));
+		assertTrue(dictionary.areWords(""));
+		assertEquals(false, dictionary.areWords("hello jkgfdihah"));
+		assertEquals(false, dictionary.areWords("-hello"));
+		assertEquals(false, dictionary.areWords("hello--world"));
+	}
+	
+	@Test
+	public void testPrefixMatchWholeWord()
+	{
+		assertTrue(dictionary.prefixMatch("zymurgy"));
+		assertEquals(false, dictionary.prefixMatch("zymurgyx"));
+	}
+	
+	@Test
+	public void testPrefixMatchWithPattern()
+	{
+		SolutionPattern single = new SolutionPattern("????????");
+		assertTrue(dictionary.prefixMatch("", single));
+		assertTrue(dictionary.prefixMatch("hell", single));
+		// "zymurgy" is a word, but no 10 letter word begins with it
+		assertEquals(false, dictionary.prefixMatch("zymurgy", new SolutionPattern("??????????")));
+		assertEquals(false, dictionary.prefixMatch("xzq", single));
+		assertEquals(false, dictionary.prefixMatch("hellohello", single));
+
+		// Each word of the pattern is checked separately
+		SolutionPattern phrase = new SolutionPattern("?????,?????");
+		assertTrue(dictionary.prefixMatch("hellow", phrase));
+		assertTrue(dictionary.prefixMatch("helloworld", phrase));
+		assertEquals(false, dictionary.prefixMatch("hellq", phrase));
+		assertEquals(false, dictionary.prefixMatch("hellowxq", phrase));
+	}
+	
+	@Test
+	public void testPrefixMatchWithKnownLetters()
+	{
+		assertTrue(dictionary.prefixMatch("hel", new SolutionPattern("?e???")));
+		assertEquals(false, dictionary.prefixMatch("hel", new SolutionPattern("?a???")));
+
+		SolutionPattern phrase = new SolutionPattern("?????,w????");
+		assertTrue(dictionary.prefixMatch("hellowo", phrase));
+		assertEquals(false, dictionary.prefixMatch("hellobo", phrase));
+	}
+	
+	@Test
+	public void testPrefixMatchSkipsSeparators()
+	{
+		// Only the letters are split up by the pattern's word lengths
+		SolutionPattern phrase = new SolutionPattern("?????,?????");
+		assertTrue(dictionary.prefixMatch("hello wor", phrase));
+		assertTrue(dictionary.prefixMatch("hel-lo", new SolutionPattern("?????")));
+		assertEquals(false, dictionary.prefixMatch("hell oworld", new SolutionPattern("????,??????")));
+	}
+	
+		@Test
+	public void testMatchesWithPrefixAndPattern()
+	{
+		HashSet<String> testColl = new HashSet<>();
+		testColl.add("mist");
+		assertEquals(testColl, dictionary.getMatchesWithPrefix("mis", new SolutionPattern("???t")));
+		assertTrue(dictionary.getMatchesWithPrefix("mis", new SolutionPattern("m??????,????")).contains("missing link"));
+		assertTrue(dictionary.getMatchesWithPrefix("mis", new SolutionPattern("??x?")).isEmpty());
+	}
+	
+		@Test
+	public void testGetAnagrams()
+	{
+		HashSet<String> expected = new HashSet<>();
+		expected.add("enlist");
+		expected.add("inlets");
+		expected.add("listen");
+		expected.add("silent");
+		expected.add("tinsel");
+		assertTrue(new HashSet<>(dictionary.getAnagrams("tinsel"))
+				.containsAll(expected));
+		assertTrue(dictionary.getAnagrams("zzzzzz").isEmpty());
+	}
 }
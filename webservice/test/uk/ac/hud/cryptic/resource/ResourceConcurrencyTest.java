@@ -0,0 +1,152 @@
+package uk.ac.hud.cryptic.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Checks the resources give the same answers when used by many threads at
+ * once. Running this class as an application will also report how the lookup
+ * throughput scales with the number of threads.
+ *
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class ResourceConcurrencyTest {
+
+	// Word patterns, as used by the anagram solver
+	private static final String[] PATTERNS = { "?a??e", "c?t", "???", "s????",
+			"??r??", "?????t", "e??", "????????", "??a???", "b??" };
+	// Clues, as used by the charade solver
+	private static final String[] CLUES = { "help the medic",
+			"medal for the medic", "master of ceremonies",
+			"quiet worker in the east", "fast ship" };
+	// Words, as used by the homophone solver
+	private static final String[] WORDS = { "knight", "right", "sea", "four",
+			"pair", "quick", "beer", "hear" };
+
+	private final Dictionary dictionary = Dictionary.getInstance();
+	private final Thesaurus thesaurus = Thesaurus.getInstance();
+	private final Abbreviations abbreviations = Abbreviations.getInstance();
+	private final HomophoneDictionary homophones = HomophoneDictionary
+			.getInstance();
+
+	/**
+	 * One round of lookups against every resource
+	 *
+	 * @param i
+	 *            - picks which inputs to use
+	 * @return a summary of the results, to compare between threads
+	 */
+	private String lookup(int i) {
+		String pattern = PATTERNS[i % PATTERNS.length];
+		String clue = CLUES[i % CLUES.length];
+		String word = WORDS[i % WORDS.length];
+
+		Map<String, Set<String>> synonyms = thesaurus.getSynonymsForClue(clue);
+		Map<String, Set<String>> abbrs = abbreviations
+				.getAbbreviationsForClue(clue);
+		// Callers are allowed to modify what they're given
+		for (Set<String> set : synonyms.values()) {
+			set.clear();
+		}
+		for (Set<String> set : abbrs.values()) {
+			set.clear();
+		}
+
+		return dictionary.getMatchingWords(pattern).size() + ":"
+				+ thesaurus.getSynonymsForClue(clue) + ":"
+				+ abbreviations.getAbbreviationsForClue(clue) + ":"
+				+ homophones.getHomonyms(word).size();
+	}
+
+	@Test
+	public void testConcurrentLookups() throws Exception {
+		final int rounds = 200;
+
+		// What a single thread sees
+		final Map<Integer, String> expected = new HashMap<>();
+		for (int i = 0; i < rounds; i++) {
+			expected.put(i, lookup(i));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				final int offset = t;
+				futures.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						for (int i = 0; i < rounds; i++) {
+							int round = (i + offset) % rounds;
+							if (!expected.get(round).equals(lookup(round))) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testCallersCannotCorruptResources() {
+		Set<String> before = abbreviations.getAbbreviationsForWord("quiet");
+		before.clear();
+		assertEquals(4, abbreviations.getAbbreviationsForWord("quiet").size());
+	}
+
+	/**
+	 * Report lookups per second for an increasing number of threads
+	 */
+	public static void main(String[] args) throws Exception {
+		final ResourceConcurrencyTest test = new ResourceConcurrencyTest();
+		final int perThread = 20000;
+		final int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+		// Warm up the caches and the JIT
+		for (int i = 0; i < perThread; i++) {
+			test.lookup(i);
+		}
+
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			long start = System.nanoTime();
+			for (int t = 0; t < threads; t++) {
+				executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						for (int i = 0; i < perThread; i++) {
+							test.lookup(i);
+						}
+					}
+				});
+			}
+			executor.shutdown();
+			executor.awaitTermination(10, TimeUnit.MINUTES);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.println(String.format("%2d thread(s): %,.0f lookups/s",
+					threads, threads * perThread / seconds));
+		}
+	}
+
+} // End of class ResourceConcurrencyTest
@@ -17,7 +17,10 @@ import org.junit.runners.Suite.SuiteClasses;
 		HomophoneDictionaryTest.class,
 		DictionaryTest.class,
 		ThesaurusTest.class,
-		AbbreviationsTest.class
+		AbbreviationsTest.class,
+		WordGraphTest.class,
+		ResourceConcurrencyTest.class,
+		SnapshotTest.class
 		})
 
 public class ResourceSuite {
@@ -0,0 +1,89 @@
+package uk.ac.hud.cryptic.resource;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.hud.cryptic.config.Settings;
+
+/**
+ * Unit tests for the Snapshot class
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class SnapshotTest {
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("cryptic", ".snapshot");
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		String[] strings = { "aardvark", "caf\u00e9", "", "ice cream" };
+		int[] first = { 0, 1, 2, 3 };
+		int[] second = {};
+		int[] third = { Integer.MAX_VALUE, -1, 42 };
+
+		new Snapshot(7, strings, first, second, third).write(file);
+		Snapshot snapshot = Snapshot.read(file);
+
+		assertEquals(7, snapshot.getFormat());
+		assertArrayEquals(strings, snapshot.getStrings());
+		assertArrayEquals(first, snapshot.getArray(0));
+		assertArrayEquals(second, snapshot.getArray(1));
+		assertArrayEquals(third, snapshot.getArray(2));
+	}
+
+	@Test
+	public void testOverwrite() throws IOException {
+		new Snapshot(1, new String[] { "old" }).write(file);
+		new Snapshot(2, new String[] { "new" }, new int[] { 1 }).write(file);
+
+		Snapshot snapshot = Snapshot.read(file);
+		assertEquals(2, snapshot.getFormat());
+		assertArrayEquals(new String[] { "new" }, snapshot.getStrings());
+		assertArrayEquals(new int[] { 1 }, snapshot.getArray(0));
+	}
+
+	/**
+	 * A snapshot written in a different format by another version of a
+	 * resource isn't loaded
+	 */
+	@Test
+	public void testLoadRejectsOtherFormat() {
+		String name = "snapshot-test";
+		try {
+			Snapshot.save(name, new Snapshot(1, new String[] { "word" },
+					new int[] { 1 }));
+			assertNotNull(Snapshot.load(name, 1, 1));
+			assertNull(Snapshot.load(name, 2, 1));
+			// The number of arrays has to match too
+			assertNull(Snapshot.load(name, 1, 2));
+		} finally {
+			Settings.getInstance().getSnapshotFile(name).delete();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotASnapshot() throws IOException {
+		Snapshot.read(file);
+	}
+
+} // End of class SnapshotTest
@@ -123,6 +123,35 @@ public class ThesaurusTest {
 				thesaurus.getSecondSynonyms(word, maxLength, minLength, true));
 	}
 
+	@Test
+	public void testGetEntriesContainingSynonym() {
+		Collection<String> entries = thesaurus.getEntriesContainingSynonym(
+				"quick", false);
+		assertTrue(entries.contains("speedy"));
+		// Each is the look-up word of an entry listing the synonym
+		for (String entry : entries) {
+			assertTrue(thesaurus.getSynonyms(entry).contains("quick"));
+		}
+		assertTrue(thesaurus.getEntriesContainingSynonym("zzzzzz", true)
+				.isEmpty());
+	}
+
+	@Test
+	public void testGetEntriesContainingSynonymWithPattern() {
+		SolutionPattern pattern = new SolutionPattern("s?????");
+		Collection<String> matching = thesaurus.getEntriesContainingSynonym(
+				"quick", pattern, false);
+		assertTrue(matching.contains("speedy"));
+		for (String entry : matching) {
+			assertTrue(pattern.match(entry));
+		}
+		// Pattern results must not be returned for the unfiltered lookup
+		Collection<String> all = thesaurus.getEntriesContainingSynonym("quick",
+				false);
+		assertTrue(all.containsAll(matching));
+		assertTrue(all.size() > matching.size());
+	}
+
 	@Test
 	public void testConfidenceAdjust() {
 		Clue c = new Clue("See six points", "????");
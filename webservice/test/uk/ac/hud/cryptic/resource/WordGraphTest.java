@@ -0,0 +1,187 @@
+package uk.ac.hud.cryptic.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the WordGraph class
+ * 
+ * @author Stuart Leader
+ * @version 0.1
+ */
+public class WordGraphTest {
+
+	private static final String[] WORDS = sorted("cat", "cot", "cut", "dog",
+			"coat", "ice cream", "ice-cap", "Mix");
+
+	private final WordGraph graph = WordGraph.build(WORDS);
+
+	@Test
+	public void testKnownCharacters() {
+		assertEquals(new HashSet<>(Arrays.asList("cat", "cot", "cut")),
+				graph.match("c?t", false));
+		assertEquals(new HashSet<>(Arrays.asList("cot")),
+				graph.match("co?", false));
+		assertEquals(new HashSet<>(Arrays.asList("coat")),
+				graph.match("c?a?", false));
+	}
+
+	@Test
+	public void testAllUnknown() {
+		assertEquals(
+				new HashSet<>(Arrays.asList("cat", "cot", "cut", "dog", "Mix")),
+				graph.match("???", false));
+	}
+
+	@Test
+	public void testNoMatches() {
+		assertTrue(graph.match("x??", false).isEmpty());
+		assertTrue(graph.match("c?g", false).isEmpty());
+		assertTrue(graph.match("??????????", false).isEmpty());
+	}
+
+	@Test
+	public void testExactMatchIsCaseSensitive() {
+		assertTrue(graph.match("m??", false).isEmpty());
+		assertEquals(new HashSet<>(Arrays.asList("Mix")),
+				graph.match("M??", false));
+	}
+
+	@Test
+	public void testNormalisedMatch() {
+		// Spaces and hyphens are ignored, and so is case
+		assertEquals(new HashSet<>(Arrays.asList("ice cream")),
+				graph.match("ice?????", true));
+		assertEquals(new HashSet<>(Arrays.asList("ice-cap")),
+				graph.match("??e-c??", true));
+		assertEquals(new HashSet<>(Arrays.asList("Mix")),
+				graph.match("m??", true));
+	}
+
+	@Test
+	public void testContains() {
+		for (String word : WORDS) {
+			assertTrue(word, graph.contains(word));
+		}
+		assertFalse(graph.contains("co"));
+		assertFalse(graph.contains("coats"));
+		assertFalse(graph.contains("icecream"));
+		assertFalse(graph.contains(""));
+	}
+
+	@Test
+	public void testHasPrefix() {
+		assertTrue(graph.hasPrefix("c"));
+		assertTrue(graph.hasPrefix("coa"));
+		assertTrue(graph.hasPrefix("ice "));
+		assertTrue(graph.hasPrefix("cat"));
+		assertFalse(graph.hasPrefix("cats"));
+		assertFalse(graph.hasPrefix("x"));
+	}
+
+	@Test
+	public void testGetWords() {
+		assertEquals(new HashSet<>(Arrays.asList("cat", "cot", "cut")),
+				graph.getWords("c", 3));
+		assertEquals(new HashSet<>(Arrays.asList("coat")),
+				graph.getWords("co", 4));
+		assertTrue(graph.getWords("c", 5).isEmpty());
+		assertTrue(graph.getWords("x", 3).isEmpty());
+	}
+
+	@Test
+	public void testMatchWithPrefix() {
+		assertEquals(new HashSet<>(Arrays.asList("cat", "cot", "cut")),
+				graph.match("c", "??t", false));
+		assertEquals(new HashSet<>(Arrays.asList("cut")),
+				graph.match("c", "?u?", false));
+		// The prefix and pattern disagree, or the prefix is too long
+		assertTrue(graph.match("d", "c??", false).isEmpty());
+		assertTrue(graph.match("coat", "???", false).isEmpty());
+
+		// Separators are ignored in the prefix as well as the pattern
+		assertEquals(new HashSet<>(Arrays.asList("ice cream")),
+				graph.match("icec", "????????", true));
+		assertEquals(new HashSet<>(Arrays.asList("ice-cap")),
+				graph.match("ice-c", "??????", true));
+	}
+
+	@Test
+	public void testGetAnagrams() {
+		WordGraph graph = WordGraph.build(sorted("act", "cat", "tact", "tat"));
+		assertEquals(Arrays.asList("act", "cat"), graph.getAnagrams("tca"));
+		// Repeated characters must all be used, and only as often as given
+		assertEquals(Arrays.asList("tact"), graph.getAnagrams("ttca"));
+		assertEquals(Arrays.asList("tat"), graph.getAnagrams("tta"));
+		assertTrue(graph.getAnagrams("ta").isEmpty());
+		assertTrue(graph.getAnagrams("tcaa").isEmpty());
+	}
+
+	@Test
+	public void testStep() {
+		int node = graph.step(WordGraph.ROOT, 'c');
+		assertNotEquals(WordGraph.NONE, node);
+		node = graph.step(node, 'o');
+		assertFalse(graph.isWord(node));
+		assertEquals(graph.walk(WordGraph.ROOT, "co"), node);
+
+		// "cot" ends here, while "coat" needs 2 more letters
+		assertTrue(graph.isWord(graph.step(node, 't')));
+		assertTrue(graph.mayEndAfter(node, 1));
+		assertTrue(graph.mayEndAfter(node, 2));
+		assertFalse(graph.mayEndAfter(node, 3));
+
+		assertEquals(WordGraph.NONE, graph.step(node, 'x'));
+		assertEquals(WordGraph.NONE, graph.walk(WordGraph.ROOT, "dot"));
+
+		// "ice-cap" is 6 letters, but 7 characters
+		node = graph.walk(WordGraph.ROOT, "ice");
+		assertTrue(graph.mayEndAfter(node, 3));
+		assertTrue(graph.mayEndAfterCharacters(node, 4));
+		assertFalse(graph.mayEndAfterCharacters(node, 3));
+	}
+
+	@Test
+	public void testSharedSuffixes() {
+		// "cat", "cot" and "cut" share everything but the middle letter, so
+		// make up only 4 nodes. "bats" and "cats" share all but the first
+		WordGraph small = WordGraph.build(sorted("cat", "cot", "cut"));
+		assertEquals(4, small.getNodeCount());
+		assertEquals(5, WordGraph.build(sorted("bats", "cats"))
+				.getNodeCount());
+	}
+
+	@Test
+	public void testDuplicatesIgnored() {
+		WordGraph graph = WordGraph.build(new String[] { "cat", "cat", "cot" });
+		assertEquals(new HashSet<>(Arrays.asList("cat", "cot")),
+				graph.match("???", false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsortedWords() {
+		WordGraph.build(new String[] { "cot", "cat" });
+	}
+
+	@Test
+	public void testSnapshot() {
+		Snapshot snapshot = new Snapshot(1, WORDS, graph.toArrays());
+		WordGraph copy = WordGraph.fromSnapshot(snapshot, 0);
+		assertEquals(graph.getNodeCount(), copy.getNodeCount());
+		assertEquals(graph.match("???", false), copy.match("???", false));
+		assertTrue(copy.contains("ice-cap"));
+	}
+
+	private static String[] sorted(String... words) {
+		Arrays.sort(words);
+		return words;
+	}
+
+} // End of class WordGraphTest
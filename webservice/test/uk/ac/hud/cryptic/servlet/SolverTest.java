@@ -268,6 +268,65 @@ public class SolverTest {
 		doTest(clue, solution, pattern, statusCode, message);
 	}
 
+	/**
+	 * This method will test that a request for an event stream receives the
+	 * solutions of each solver as it finishes, followed by the complete
+	 * results.
+	 */
+	@Test
+	public void testEventStream() {
+		URI uri = getSolverURI("Fruit found in grape, arrested", "4", "????");
+		String stream = getEventStream(uri);
+
+		// Each solver's solutions come before the complete results
+		int solutions = stream.indexOf("event: solutions");
+		int done = stream.indexOf("event: done");
+		assertTrue(solutions >= 0);
+		assertTrue(done > solutions);
+		assertTrue(stream.contains("pear"));
+	}
+
+	/**
+	 * This method will test that problems with the inputs are reported as an
+	 * error event when an event stream is requested.
+	 */
+	@Test
+	public void testEventStreamInvalidInput() {
+		URI uri = getSolverURI("", "4", "????");
+		String stream = getEventStream(uri);
+
+		assertTrue(stream.contains("event: error"));
+		assertTrue(stream.contains("Please enter a clue to solve."));
+		assertTrue(!stream.contains("event: done"));
+	}
+
+	/**
+	 * Make a GET request for a stream of Server-Sent Events, as a browser's
+	 * EventSource would, and read the whole stream
+	 * 
+	 * @param uri
+	 *            the URI to be requested
+	 * @return the events sent by the server
+	 */
+	private String getEventStream(URI uri) {
+		HttpGet request = new HttpGet(uri);
+		request.addHeader(HttpHeaders.ACCEPT, "text/event-stream");
+
+		try (CloseableHttpResponse response = client.execute(request)) {
+			// Ensure the response is an event stream
+			String contentType = response.getEntity().getContentType()
+					.getValue();
+			assertTrue(contentType.contains("text/event-stream"));
+			assertEquals(HttpServletResponse.SC_OK, response.getStatusLine()
+					.getStatusCode());
+			return getServerOutput(response);
+		} catch (IOException e) {
+			// Something has REALLY gone wrong.
+			fail("Test aborted due to unrecoverable error: " + e.getMessage());
+			return null;
+		}
+	}
+
 	/**
 	 * This test helper method will run a test with the given test data clue,
 	 * solution and pattern.The method will make a request that expects HTML,
@@ -2,6 +2,11 @@ package uk.ac.hud.cryptic.util;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -129,4 +134,90 @@ public class CacheTest {
 		assertEquals(value, cache.get(key));
 	}
 
+	@Test
+	public void testLeastRecentlyUsedEvicted() {
+		Cache<String, String> small = new Cache<>(4);
+		small.put("a", "1");
+		small.put("b", "2");
+		small.put("c", "3");
+		small.put("d", "4");
+		// Use "a", so "b" becomes the oldest
+		assertEquals("1", small.get("a"));
+		small.put("e", "5");
+		assertTrue(small.containsKey("a"));
+		assertFalse(small.containsKey("b"));
+		assertEquals(1, small.getEvictionCount());
+	}
+
+	@Test
+	public void testWeigher() {
+		Cache<String, Collection<String>> weighted = new Cache<String, Collection<String>>(
+				10, Cache.COLLECTION_WEIGHER, 0);
+		weighted.put("small", Arrays.asList("a"));
+		assertEquals(2, weighted.getWeight());
+		// Too heavy for both to fit
+		weighted.put("large", Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h"));
+		assertFalse(weighted.containsKey("small"));
+		assertTrue(weighted.containsKey("large"));
+		assertEquals(9, weighted.getWeight());
+	}
+
+	@Test
+	public void testExpiry() throws Exception {
+		Cache<String, String> expiring = new Cache<>(10,
+				Cache.SINGLETON_WEIGHER, 20);
+		expiring.put("key", "value");
+		assertEquals("value", expiring.get("key"));
+		Thread.sleep(50);
+		assertNull(expiring.get("key"));
+		assertEquals(0, expiring.getWeight());
+	}
+
+	@Test
+	public void testStatistics() {
+		cache.put("key", "value");
+		cache.get("key");
+		cache.get("key");
+		cache.get("missing");
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(2.0 / 3, cache.getHitRate(), 0.0001);
+	}
+
+	@Test
+	public void testConcurrentPuts() throws Exception {
+		final Cache<Integer, Integer> shared = new Cache<>(100);
+		final AtomicBoolean failed = new AtomicBoolean();
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t * 10000;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int i = 0; i < 5000; i++) {
+							shared.put(offset + i, i);
+							Integer value = shared.get(offset + i / 2);
+							if (value != null && value != i / 2) {
+								failed.set(true);
+							}
+						}
+					} catch (Exception e) {
+						failed.set(true);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertFalse(failed.get());
+		assertTrue(shared.getWeight() <= 100);
+		assertEquals(shared.size(), shared.getWeight());
+	}
+
 } // End of class CacheTest
@@ -150,4 +150,55 @@ public class WordUtilsTest {
 		"o" , "o" }));
 	}
 
+	/**
+	 * Test method for
+	 * {@link uk.ac.hud.cryptic.util.WordUtils#hasCharacters(java.lang.String, java.lang.String)}
+	 * with more characters than fit in a bit mask.
+	 */
+	@Test
+	public void testHasCharactersLongPool() {
+		final String pool = "the quick brown fox jumps over the lazy dog and then "
+				+ "jumps back over it again";
+		assertTrue(WordUtils.hasCharacters("quiz", pool));
+		assertTrue(WordUtils.hasCharacters("ooooo", pool));
+		assertFalse(WordUtils.hasCharacters("oooooo", pool));
+		assertFalse(WordUtils.hasCharacters("quizz", pool));
+	}
+
+	/**
+	 * Test method for
+	 * {@link uk.ac.hud.cryptic.util.WordUtils#reverseWord(java.lang.String)}
+	 * .
+	 */
+	@Test
+	public void testReverseWord() {
+		assertEquals("", WordUtils.reverseWord(""));
+		assertEquals("a", WordUtils.reverseWord("a"));
+		assertEquals("olleh", WordUtils.reverseWord("hello"));
+		assertEquals("dlrow olleh", WordUtils.reverseWord("hello world"));
+	}
+
+	/**
+	 * Test method for the letter count methods, such as
+	 * {@link uk.ac.hud.cryptic.util.WordUtils#takeLetters(int[], java.lang.CharSequence)}
+	 * .
+	 */
+	@Test
+	public void testLetterCounts() {
+		int[] counts = WordUtils.getLetterCounts("listen!");
+		assertEquals(WordUtils.ALPHABET_SIZE, counts.length);
+		assertEquals("eilnst", WordUtils.toLetters(counts));
+
+		// Taking letters that are available
+		assertTrue(WordUtils.takeLetters(counts, "lit"));
+		assertEquals("ens", WordUtils.toLetters(counts));
+		// A word which can't be made leaves the counts alone
+		assertFalse(WordUtils.takeLetters(counts, "sees"));
+		assertFalse(WordUtils.takeLetters(counts, "en-s"));
+		assertEquals("ens", WordUtils.toLetters(counts));
+		// Putting them back
+		WordUtils.returnLetters(counts, "lit");
+		assertEquals("eilnst", WordUtils.toLetters(counts));
+	}
+
 }
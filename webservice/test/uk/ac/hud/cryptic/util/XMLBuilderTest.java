@@ -95,6 +95,30 @@ public class XMLBuilderTest {
 	 * This method will test to ensure that an XMLBuilder object can add an 
 	 * additional custom key/value pair.
 	 */
+	@Test
+	public void testGridXMLBuilder() {
+		// Create a new XML object for a grid
+		List<String> rows = new ArrayList<>();
+		rows.add("cat");
+		rows.add("#??");
+		XMLBuilder builder = new XMLBuilder(rows, 5.0);
+		builder.addEntry("1a", "Pet", "cat", "cat", 1);
+		builder.addEntry("2d", "Unsolved", "a?", null, 0);
+
+		// Convert to a String
+		String xml = builder.toString();
+
+		// Ensure main elements are present
+		containsRoot(xml);
+		containsDuration(xml, "0.01");
+		assert (xml.contains("<grid><row>cat</row><row>#??</row></grid>"));
+		assert (xml.contains("<entry><id>1a</id><clue>Pet</clue>"
+				+ "<pattern>cat</pattern><answer>cat</answer>"
+				+ "<solutions>1</solutions></entry>"));
+		assert (xml.contains("<entry><id>2d</id><clue>Unsolved</clue>"
+				+ "<pattern>a?</pattern><solutions>0</solutions></entry>"));
+	}
+
 	@Test
 	public void testAddKeyValue() {
 		// Create a new XML object